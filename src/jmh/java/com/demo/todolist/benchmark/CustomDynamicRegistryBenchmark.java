@@ -0,0 +1,78 @@
+package com.demo.todolist.benchmark;
+
+import com.demo.todolist.customdynamic.config.CustomDynamicDataSourceContext;
+import com.demo.todolist.customdynamic.config.CustomDynamicDataSourceProperties;
+import com.demo.todolist.customdynamic.config.CustomDynamicRoutingDataSource;
+import com.demo.todolist.customdynamic.dto.CustomDynamicConnectRequest;
+import com.demo.todolist.customdynamic.dto.DbType;
+import com.demo.todolist.customdynamic.service.CustomDynamicDataSourceRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// touch (which also checks existence) runs on every request; measured with 16 threads hitting the same registry.
+// All connection ids share one pool on an in-memory H2 database, so setup opens a single JDBC connection.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CustomDynamicRegistryBenchmark {
+
+    private static final String DATABASE_NAME = "bench";
+
+    @Param({"10", "1000"})
+    public int connectionIds;
+
+    private CustomDynamicDataSourceRegistry registry;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        CustomDynamicDataSourceProperties.DatabaseConfig database = new CustomDynamicDataSourceProperties.DatabaseConfig();
+        database.setDbType(DbType.POSTGRES);
+        database.setUrl("jdbc:h2:mem:bench;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        database.setDriverClassName("org.h2.Driver");
+        CustomDynamicDataSourceProperties properties = new CustomDynamicDataSourceProperties();
+        properties.getDatabases().put(DATABASE_NAME, database);
+
+        CustomDynamicRoutingDataSource routingDataSource = new CustomDynamicRoutingDataSource();
+        routingDataSource.setTargetDataSources(Map.of(CustomDynamicDataSourceContext.DEFAULT_KEY, new SimpleDriverDataSource()));
+        routingDataSource.afterPropertiesSet();
+        registry = new CustomDynamicDataSourceRegistry(routingDataSource, properties, event -> {
+        }, new SimpleMeterRegistry());
+
+        keys = new String[connectionIds];
+        for (int i = 0; i < connectionIds; i++) {
+            keys[i] = registry.connect(new CustomDynamicConnectRequest(DATABASE_NAME, "sa", "sa")).getConnectionId();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        registry.removeAll();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void touch() {
+        registry.touch(keys[ThreadLocalRandom.current().nextInt(keys.length)]);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void ensureExists() {
+        registry.ensureExists(keys[ThreadLocalRandom.current().nextInt(keys.length)]);
+    }
+}
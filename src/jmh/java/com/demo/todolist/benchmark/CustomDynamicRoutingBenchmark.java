@@ -0,0 +1,70 @@
+package com.demo.todolist.benchmark;
+
+import com.demo.todolist.customdynamic.config.CustomDynamicDataSourceContext;
+import com.demo.todolist.customdynamic.config.CustomDynamicRoutingDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cost of resolving the target pool for a routed statement and of registering/removing a connection while
+// connectionIds other connections are registered. Targets are placeholders; no JDBC connection is opened.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CustomDynamicRoutingBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int connectionIds;
+
+    private ExposedRoutingDataSource routingDataSource;
+    private String[] keys;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        routingDataSource = new ExposedRoutingDataSource();
+        DataSource defaultDataSource = new SimpleDriverDataSource();
+        routingDataSource.setTargetDataSources(Map.of(CustomDynamicDataSourceContext.DEFAULT_KEY, defaultDataSource));
+        routingDataSource.setDefaultTargetDataSource(defaultDataSource);
+        routingDataSource.afterPropertiesSet();
+        keys = new String[connectionIds];
+        for (int i = 0; i < connectionIds; i++) {
+            keys[i] = "conn-" + i;
+            routingDataSource.addTargetDataSource(keys[i], new SimpleDriverDataSource());
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public DataSource lookup() {
+        String key = keys[ThreadLocalRandom.current().nextInt(keys.length)];
+        return CustomDynamicDataSourceContext.callWith(key, routingDataSource::target);
+    }
+
+    // Replaces the old refreshRoutingDataSources measurement: connect/close no longer rebuild the resolved map.
+    @Benchmark
+    public void registerAndRemove() {
+        String key = "churn-" + sequence.incrementAndGet();
+        routingDataSource.addTargetDataSource(key, routingDataSource.target());
+        routingDataSource.removeTargetDataSource(key);
+    }
+
+    static class ExposedRoutingDataSource extends CustomDynamicRoutingDataSource {
+        DataSource target() {
+            return determineTargetDataSource();
+        }
+    }
+}
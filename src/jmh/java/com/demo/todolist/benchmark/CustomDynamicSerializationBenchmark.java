@@ -0,0 +1,82 @@
+package com.demo.todolist.benchmark;
+
+import com.demo.todolist.dto.CustomDynamicPageResponse;
+import com.demo.todolist.entity.Customer;
+import com.demo.todolist.entity.OrderEntity;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Response body cost for a full page (limit 200), with the ObjectMapper settings Spring Boot applies.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CustomDynamicSerializationBenchmark {
+
+    private static final int PAGE_ROWS = 200;
+
+    private ObjectMapper objectMapper;
+    private CustomDynamicPageResponse<OrderEntity> orders;
+    private CustomDynamicPageResponse<Customer> customers;
+
+    @Setup
+    public void setUp() {
+        objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        OffsetDateTime createdAt = OffsetDateTime.parse("2025-12-01T10:15:30+08:00");
+        List<OrderEntity> orderRows = new ArrayList<>(PAGE_ROWS);
+        List<Customer> customerRows = new ArrayList<>(PAGE_ROWS);
+        for (int i = 0; i < PAGE_ROWS; i++) {
+            OrderEntity order = new OrderEntity();
+            order.setOrderId(100_000L + i);
+            order.setCustomerId(1_000L + i % 50);
+            order.setOrderStatus("PAID");
+            order.setOrderChannel(i % 2 == 0 ? "WEB" : "APP");
+            order.setCurrency("TWD");
+            order.setDiscountAmt(new BigDecimal("15.00"));
+            order.setShippingFee(new BigDecimal("60.00"));
+            order.setCreatedAt(createdAt.plusMinutes(i));
+            order.setPaidAt(createdAt.plusMinutes(i + 2));
+            orderRows.add(order);
+
+            Customer customer = new Customer();
+            customer.setCustomerId(1_000L + i);
+            customer.setEmail("customer" + i + "@example.com");
+            customer.setFullName("Customer " + i);
+            customer.setPhone("0912-345-" + String.format("%03d", i));
+            customer.setCountry("TW");
+            customer.setCity("Taipei");
+            customer.setSignupAt(createdAt.minusDays(i));
+            customer.setIsVip(i % 10 == 0);
+            customerRows.add(customer);
+        }
+        orders = new CustomDynamicPageResponse<>(orderRows, "next-cursor", null);
+        customers = new CustomDynamicPageResponse<>(customerRows, "next-cursor", null);
+    }
+
+    @Benchmark
+    public byte[] orders() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(orders);
+    }
+
+    @Benchmark
+    public byte[] customers() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(customers);
+    }
+}
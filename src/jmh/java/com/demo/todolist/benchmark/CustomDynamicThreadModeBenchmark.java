@@ -0,0 +1,91 @@
+package com.demo.todolist.benchmark;
+
+import com.demo.todolist.customdynamic.config.CustomDynamicDataSourceContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Models a burst of slow report queries: every request binds its routing key, waits for one of the pool's
+// connections and blocks on "JDBC" for a fixed latency. PLATFORM mirrors Tomcat's default 200 worker threads,
+// VIRTUAL runs one virtual thread per request so only the connection pool limits concurrency.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CustomDynamicThreadModeBenchmark {
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public String mode;
+
+    @Param({"200", "2000", "10000"})
+    public int concurrentRequests;
+
+    @Param({"50", "500"})
+    public int poolSize;
+
+    @Param({"5"})
+    public int queryLatencyMs;
+
+    private ExecutorService executor;
+    private Semaphore connections;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        executor = "VIRTUAL".equals(mode)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+        connections = new Semaphore(poolSize, true);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public int burst() throws Exception {
+        List<Future<String>> futures = new ArrayList<>(concurrentRequests);
+        for (int i = 0; i < concurrentRequests; i++) {
+            String connectionId = "conn-" + (i % 64);
+            Callable<String> request = () -> CustomDynamicDataSourceContext.callWith(connectionId, this::runQuery);
+            futures.add(executor.submit(request));
+        }
+        int routed = 0;
+        for (Future<String> future : futures) {
+            if (future.get() != null) {
+                routed++;
+            }
+        }
+        return routed;
+    }
+
+    private String runQuery() {
+        connections.acquireUninterruptibly();
+        try {
+            Thread.sleep(queryLatencyMs);
+            return CustomDynamicDataSourceContext.getCurrentKey();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            connections.release();
+        }
+    }
+}
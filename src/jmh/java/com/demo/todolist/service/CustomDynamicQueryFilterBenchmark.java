@@ -0,0 +1,104 @@
+package com.demo.todolist.service;
+
+import com.demo.todolist.customdynamic.dialect.CustomDynamicSqlDialect;
+import com.demo.todolist.dto.CustomDynamicCategoryQueryRequest;
+import com.demo.todolist.dto.CustomDynamicCustomerQueryRequest;
+import com.demo.todolist.dto.CustomDynamicInventoryMovementQueryRequest;
+import com.demo.todolist.dto.CustomDynamicOrderItemQueryRequest;
+import com.demo.todolist.dto.CustomDynamicOrderQueryRequest;
+import com.demo.todolist.dto.CustomDynamicPaymentQueryRequest;
+import com.demo.todolist.dto.CustomDynamicProductQueryRequest;
+import com.demo.todolist.dto.CustomDynamicReturnQueryRequest;
+import com.demo.todolist.dto.CustomDynamicTotalMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Binds each query template to a request with every filter set, i.e. the per-request cost before any SQL reaches the
+// driver; the SQL itself is rendered once per shape. Lives in the service package because the templates are
+// package-private.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CustomDynamicQueryFilterBenchmark {
+
+    private static final String CONNECTION_ID = "bench";
+    private static final OffsetDateTime FROM = OffsetDateTime.parse("2025-01-01T00:00:00+08:00");
+    private static final OffsetDateTime TO = OffsetDateTime.parse("2026-01-01T00:00:00+08:00");
+
+    private CustomDynamicCustomerQueryRequest customers;
+    private CustomDynamicCategoryQueryRequest categories;
+    private CustomDynamicProductQueryRequest products;
+    private CustomDynamicInventoryMovementQueryRequest inventoryMovements;
+    private CustomDynamicOrderQueryRequest orders;
+    private CustomDynamicOrderItemQueryRequest orderItems;
+    private CustomDynamicPaymentQueryRequest payments;
+    private CustomDynamicReturnQueryRequest returns;
+
+    @Setup
+    public void setUp() {
+        customers = new CustomDynamicCustomerQueryRequest(CONNECTION_ID, "a@example.com", "Chen", "TW", "Taipei",
+                true, FROM, TO, "chen", 50, null, CustomDynamicTotalMode.NONE);
+        categories = new CustomDynamicCategoryQueryRequest(CONNECTION_ID, "Audio", 50, null, CustomDynamicTotalMode.NONE);
+        products = new CustomDynamicProductQueryRequest(CONNECTION_ID, "SKU-1", "Headphones", 3L, true,
+                new BigDecimal("10"), new BigDecimal("500"), "wireless", 50, null, CustomDynamicTotalMode.NONE);
+        inventoryMovements = new CustomDynamicInventoryMovementQueryRequest(CONNECTION_ID, 42L, "IN", "TPE-1", FROM, TO,
+                false, 50, null, CustomDynamicTotalMode.NONE);
+        orders = new CustomDynamicOrderQueryRequest(CONNECTION_ID, 7L, "PAID", "WEB", FROM, TO, 50, null,
+                CustomDynamicTotalMode.NONE);
+        orderItems = new CustomDynamicOrderItemQueryRequest(CONNECTION_ID, 1001L, 42L, false, 50, null,
+                CustomDynamicTotalMode.NONE);
+        payments = new CustomDynamicPaymentQueryRequest(CONNECTION_ID, 1001L, "CARD", "CAPTURED", FROM, TO, 50, null,
+                CustomDynamicTotalMode.NONE);
+        returns = new CustomDynamicReturnQueryRequest(CONNECTION_ID, 1001L, 42L, "REQUESTED", FROM, TO, false, 50, null,
+                CustomDynamicTotalMode.NONE);
+    }
+
+    @Benchmark
+    public Object customers() {
+        return CustomDynamicQueryTemplate.CUSTOMERS.bind(customers, CustomDynamicSqlDialect.POSTGRES, null, null, false);
+    }
+
+    @Benchmark
+    public Object categories() {
+        return CustomDynamicQueryTemplate.CATEGORIES.bind(categories, CustomDynamicSqlDialect.POSTGRES, null, null, false);
+    }
+
+    @Benchmark
+    public Object products() {
+        return CustomDynamicQueryTemplate.PRODUCTS.bind(products, CustomDynamicSqlDialect.POSTGRES, null, null, false);
+    }
+
+    @Benchmark
+    public Object inventoryMovements() {
+        return CustomDynamicQueryTemplate.INVENTORY_MOVEMENTS.bind(inventoryMovements, CustomDynamicSqlDialect.POSTGRES, null, null, false);
+    }
+
+    @Benchmark
+    public Object orders() {
+        return CustomDynamicQueryTemplate.ORDERS.bind(orders, CustomDynamicSqlDialect.POSTGRES, null, null, false);
+    }
+
+    @Benchmark
+    public Object orderItems() {
+        return CustomDynamicQueryTemplate.ORDER_ITEMS.bind(orderItems, CustomDynamicSqlDialect.POSTGRES, null, null, false);
+    }
+
+    @Benchmark
+    public Object payments() {
+        return CustomDynamicQueryTemplate.PAYMENTS.bind(payments, CustomDynamicSqlDialect.POSTGRES, null, null, false);
+    }
+
+    @Benchmark
+    public Object returns() {
+        return CustomDynamicQueryTemplate.RETURNS.bind(returns, CustomDynamicSqlDialect.POSTGRES, null, null, false);
+    }
+}
@@ -0,0 +1,503 @@
+package com.demo.todolist.loadtest;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Appends referentially consistent commerce data to the sql/test_ddl.sql schema at a configurable scale.
+// Ids are assigned by the generator above the current maximum of every table, so chunks can be written by
+// independent threads without coordination; the serial sequences are moved past them at the end.
+// Every chunk draws from its own seeded random, so the same settings always produce the same rows.
+//
+// Skew: order volume grows over the period and follows a daily curve, older customers and a head of popular
+// products take most orders, and the status mix depends on the order's age (recent orders are still CREATED
+// or PAID, older ones are mostly SHIPPED).
+public final class CustomDynamicDataGenerator {
+
+    private static final ZoneOffset ZONE = ZoneOffset.ofHours(8);
+    private static final int MAX_ITEMS_PER_ORDER = 5;
+    // one OUT per item, one IN per returned item and an occasional ADJUST
+    private static final int MOVEMENT_SLOTS_PER_ITEM = 3;
+    private static final int ORDERS_PER_CHUNK = 100_000;
+    private static final int CUSTOMERS_PER_CHUNK = 200_000;
+    private static final int INITIAL_STOCK = 1_000_000;
+
+    private static final String[] WAREHOUSES = {"TW-TP", "TW-TC", "TW-KH"};
+    private static final double[] WAREHOUSE_WEIGHTS = {0.55, 0.25, 0.20};
+    private static final String[] CITIES = {"Taipei", "New Taipei", "Taoyuan", "Taichung", "Tainan", "Kaohsiung", "Hsinchu", "Keelung"};
+    private static final double[] CITY_WEIGHTS = {0.24, 0.20, 0.11, 0.14, 0.08, 0.12, 0.07, 0.04};
+    private static final String[] COUNTRIES = {"TW", "JP", "HK", "SG", "US"};
+    private static final double[] COUNTRY_WEIGHTS = {0.92, 0.03, 0.02, 0.02, 0.01};
+    private static final String[] CHANNELS = {"APP", "WEB", "STORE"};
+    private static final double[] CHANNEL_WEIGHTS = {0.50, 0.35, 0.15};
+    private static final String[] ONLINE_METHODS = {"CREDIT_CARD", "LINE_PAY", "BANK_TRANSFER", "COD"};
+    private static final double[] ONLINE_METHOD_WEIGHTS = {0.50, 0.30, 0.10, 0.10};
+    private static final String[] STORE_METHODS = {"CREDIT_CARD", "LINE_PAY"};
+    private static final double[] STORE_METHOD_WEIGHTS = {0.60, 0.40};
+    private static final String[] RETURN_REASONS = {"Defective item", "Wrong size", "Not as described", "Changed mind", "Arrived late"};
+    private static final double[] ITEM_COUNT_WEIGHTS = {0.55, 0.25, 0.12, 0.05, 0.03};
+    // relative order volume per hour of day, lunch and evening peaks
+    private static final double[] HOUR_WEIGHTS = {
+            2, 1, 1, 0.5, 0.5, 0.5, 1, 2, 3, 4, 5, 6, 8, 7, 5, 5, 5, 6, 7, 9, 10, 10, 8, 4};
+
+    private final Settings settings;
+    private final OffsetDateTime periodStart;
+    private final long periodSeconds;
+    // customers sign up from a year before the period until its end
+    private final OffsetDateTime signupStart;
+    private final long signupSeconds;
+    private final AtomicLong ordersWritten = new AtomicLong();
+    private final long startedAt = System.nanoTime();
+
+    private Ids base;
+    private Catalog catalog;
+
+    public CustomDynamicDataGenerator(Settings settings) {
+        this.settings = settings;
+        OffsetDateTime periodEnd = settings.endDate().atStartOfDay().atOffset(ZONE);
+        this.periodStart = periodEnd.minusDays(settings.days());
+        this.periodSeconds = Duration.between(periodStart, periodEnd).toSeconds();
+        this.signupStart = periodStart.minusDays(365);
+        this.signupSeconds = Duration.between(signupStart, periodEnd).toSeconds();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = Settings.fromSystemProperties();
+        new CustomDynamicDataGenerator(settings).generate();
+    }
+
+    public void generate() throws Exception {
+        try (Connection connection = connect()) {
+            base = Ids.read(connection, settings.schema());
+            catalog = writeCatalog(connection);
+        }
+        log("catalog: %d categories, %d products", settings.categories(), settings.products());
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(settings.threads())) {
+            List<Future<?>> chunks = new ArrayList<>();
+            for (long from = 0; from < settings.customers(); from += CUSTOMERS_PER_CHUNK) {
+                long chunkFrom = from;
+                long chunkTo = Math.min(from + CUSTOMERS_PER_CHUNK, settings.customers());
+                chunks.add(executor.submit(() -> {
+                    writeCustomers(chunkFrom, chunkTo);
+                    return null;
+                }));
+            }
+            await(chunks);
+            log("customers: %d", settings.customers());
+
+            chunks.clear();
+            for (long from = 0; from < settings.orders(); from += ORDERS_PER_CHUNK) {
+                long chunkFrom = from;
+                long chunkTo = Math.min(from + ORDERS_PER_CHUNK, settings.orders());
+                chunks.add(executor.submit(() -> {
+                    writeOrders(chunkFrom, chunkTo);
+                    return null;
+                }));
+            }
+            await(chunks);
+        }
+
+        try (Connection connection = connect()) {
+            resetSequences(connection);
+        }
+        log("done: %d orders", ordersWritten.get());
+    }
+
+    private Catalog writeCatalog(Connection connection) throws SQLException {
+        SplittableRandom random = new SplittableRandom(settings.seed());
+        connection.setAutoCommit(false);
+        try (CustomDynamicRowWriter categories = writer(connection, "categories", "category_id", "category_name");
+             CustomDynamicRowWriter products = writer(connection, "products", "product_id", "sku", "product_name",
+                     "category_id", "list_price", "cost_price", "is_active", "created_at");
+             CustomDynamicRowWriter movements = writer(connection, "inventory_movements", "movement_id", "product_id",
+                     "movement_type", "qty", "warehouse", "moved_at", "ref_note")) {
+            for (int i = 1; i <= settings.categories(); i++) {
+                long categoryId = base.category() + i;
+                categories.add(categoryId, "Category " + categoryId);
+            }
+            BigDecimal[] listPrices = new BigDecimal[settings.products()];
+            for (int i = 0; i < settings.products(); i++) {
+                long productId = base.product() + i + 1;
+                // log-normal prices around NT$650, rounded to NT$10
+                double price = Math.exp(6.5 + 0.8 * gaussian(random));
+                BigDecimal listPrice = BigDecimal.valueOf(Math.max(10, Math.round(price / 10) * 10)).setScale(2, RoundingMode.UNNECESSARY);
+                BigDecimal costPrice = listPrice.multiply(BigDecimal.valueOf(0.45 + 0.3 * random.nextDouble()))
+                        .setScale(2, RoundingMode.HALF_UP);
+                listPrices[i] = listPrice;
+                long categoryId = base.category() + 1 + skewed(random, settings.categories(), 2);
+                OffsetDateTime createdAt = periodStart.minusSeconds(random.nextLong(365L * 86_400));
+                products.add(productId, "SKU-" + productId, "Product " + productId, categoryId, listPrice, costPrice,
+                        random.nextDouble() < 0.95, createdAt);
+                for (int w = 0; w < WAREHOUSES.length; w++) {
+                    movements.add(base.movement() + (long) i * WAREHOUSES.length + w + 1, productId, "IN", INITIAL_STOCK,
+                            WAREHOUSES[w], createdAt.plusHours(1), "initial stock");
+                }
+            }
+            categories.flush();
+            products.flush();
+            movements.flush();
+            connection.commit();
+            return new Catalog(listPrices);
+        }
+    }
+
+    private void writeCustomers(long from, long to) throws SQLException {
+        SplittableRandom random = new SplittableRandom(settings.seed() ^ (0x5DEECE66DL * (from + 1)));
+        try (Connection connection = connect()) {
+            connection.setAutoCommit(false);
+            try (CustomDynamicRowWriter customers = writer(connection, "customers", "customer_id", "email", "full_name",
+                    "phone", "country", "city", "signup_at", "is_vip")) {
+                for (long j = from; j < to; j++) {
+                    long customerId = base.customer() + j + 1;
+                    customers.add(customerId, "customer" + customerId + "@example.com", "Customer " + customerId,
+                            String.format("09%08d", random.nextInt(100_000_000)),
+                            pick(random, COUNTRIES, COUNTRY_WEIGHTS), pick(random, CITIES, CITY_WEIGHTS),
+                            signupAt(j), random.nextDouble() < 0.05);
+                    if (customers.pending >= settings.batchSize()) {
+                        customers.flush();
+                        connection.commit();
+                    }
+                }
+                customers.flush();
+                connection.commit();
+            }
+        }
+    }
+
+    private void writeOrders(long from, long to) throws SQLException {
+        SplittableRandom random = new SplittableRandom(settings.seed() ^ (0x9E3779B97F4A7C15L * (from + 1)));
+        // timestamps are drawn per order and sorted, so ids rise with created_at like in a live system
+        OffsetDateTime[] createdAt = new OffsetDateTime[(int) (to - from)];
+        for (int i = 0; i < createdAt.length; i++) {
+            createdAt[i] = createdAt(random, from + i);
+        }
+        Arrays.sort(createdAt);
+
+        try (Connection connection = connect()) {
+            connection.setAutoCommit(false);
+            try (CustomDynamicRowWriter orders = writer(connection, "orders", "order_id", "customer_id", "order_status",
+                    "order_channel", "currency", "discount_amt", "shipping_fee", "created_at", "paid_at", "shipped_at");
+                 CustomDynamicRowWriter items = writer(connection, "order_items", "order_item_id", "order_id", "product_id",
+                         "qty", "unit_price", "item_discount");
+                 CustomDynamicRowWriter payments = writer(connection, "payments", "payment_id", "order_id",
+                         "payment_method", "payment_status", "paid_amount", "paid_at");
+                 CustomDynamicRowWriter returns = writer(connection, "returns", "return_id", "order_id", "product_id",
+                         "qty", "reason", "return_status", "requested_at", "resolved_at");
+                 CustomDynamicRowWriter movements = writer(connection, "inventory_movements", "movement_id", "product_id",
+                         "movement_type", "qty", "warehouse", "moved_at", "ref_note")) {
+                for (long i = from; i < to; i++) {
+                    writeOrder(random, i, createdAt[(int) (i - from)], orders, items, payments, returns, movements);
+                    if (orders.pending >= settings.batchSize()) {
+                        flush(connection, orders, items, payments, returns, movements);
+                    }
+                }
+                flush(connection, orders, items, payments, returns, movements);
+            }
+        }
+        long written = ordersWritten.addAndGet(to - from);
+        log("orders: %d/%d", written, settings.orders());
+    }
+
+    private void writeOrder(SplittableRandom random, long index, OffsetDateTime createdAt,
+                            CustomDynamicRowWriter orders, CustomDynamicRowWriter items, CustomDynamicRowWriter payments,
+                            CustomDynamicRowWriter returns, CustomDynamicRowWriter movements) throws SQLException {
+        long orderId = base.order() + index + 1;
+        String status = status(random, createdAt);
+        String channel = pick(random, CHANNELS, CHANNEL_WEIGHTS);
+        String warehouse = pick(random, WAREHOUSES, WAREHOUSE_WEIGHTS);
+        boolean paid = !"CREATED".equals(status) && !"CANCELLED".equals(status);
+        boolean shipped = "SHIPPED".equals(status) || "REFUNDED".equals(status);
+        OffsetDateTime paidAt = paid ? createdAt.plusMinutes(1 + random.nextInt(30)) : null;
+        OffsetDateTime shippedAt = shipped ? paidAt.plusHours(6 + random.nextInt(66)) : null;
+
+        int itemCount = (int) Math.min(1 + pickIndex(random, ITEM_COUNT_WEIGHTS), settings.products());
+        long[] productIndexes = new long[itemCount];
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int k = 0; k < itemCount; k++) {
+            long productIndex = distinctProduct(random, productIndexes, k);
+            productIndexes[k] = productIndex;
+            long productId = base.product() + productIndex + 1;
+            long itemId = itemId(index, k);
+            int qty = random.nextDouble() < 0.8 ? 1 : random.nextDouble() < 0.75 ? 2 : 3;
+            BigDecimal unitPrice = catalog.listPrices()[(int) productIndex];
+            BigDecimal lineTotal = unitPrice.multiply(BigDecimal.valueOf(qty));
+            BigDecimal itemDiscount = random.nextDouble() < 0.1
+                    ? lineTotal.multiply(BigDecimal.valueOf(0.1)).setScale(2, RoundingMode.HALF_UP)
+                    : BigDecimal.ZERO.setScale(2);
+            subtotal = subtotal.add(lineTotal).subtract(itemDiscount);
+            items.add(itemId, orderId, productId, qty, unitPrice, itemDiscount);
+            if (shipped) {
+                movements.add(movementId(itemId, 0), productId, "OUT", -qty, warehouse, shippedAt.plusMinutes(10),
+                        "ship order " + orderId);
+            }
+            if (k == 0 && random.nextInt(500) == 0) {
+                movements.add(movementId(itemId, 2), productId, "ADJUST", random.nextBoolean() ? 1 : -1, warehouse,
+                        createdAt, "cycle count");
+            }
+            if (k == 0 && ("REFUNDED".equals(status) || (shipped && random.nextDouble() < 0.03))) {
+                writeReturn(random, orderId, productId, qty, status, shippedAt, warehouse, itemId, returns, movements);
+            }
+        }
+
+        BigDecimal discount = random.nextDouble() < 0.15
+                ? BigDecimal.valueOf(new int[]{50, 100, 200}[random.nextInt(3)]).min(subtotal).setScale(2, RoundingMode.DOWN)
+                : BigDecimal.ZERO.setScale(2);
+        BigDecimal shippingFee = "STORE".equals(channel) || subtotal.compareTo(BigDecimal.valueOf(1000)) >= 0
+                ? BigDecimal.ZERO.setScale(2)
+                : BigDecimal.valueOf(60).setScale(2);
+        orders.add(orderId, customerFor(random, createdAt), status, channel, "TWD", discount, shippingFee, createdAt,
+                paidAt, shippedAt);
+
+        String method = "STORE".equals(channel)
+                ? pick(random, STORE_METHODS, STORE_METHOD_WEIGHTS)
+                : pick(random, ONLINE_METHODS, ONLINE_METHOD_WEIGHTS);
+        BigDecimal amount = subtotal.subtract(discount).add(shippingFee).max(BigDecimal.ZERO);
+        long paymentId = base.payment() + index + 1;
+        if (paid) {
+            payments.add(paymentId, orderId, method, "REFUNDED".equals(status) ? "REFUNDED" : "SUCCESS", amount, paidAt);
+        } else if ("CREATED".equals(status) && random.nextBoolean()) {
+            payments.add(paymentId, orderId, method, "PENDING", BigDecimal.ZERO.setScale(2), null);
+        } else if ("CANCELLED".equals(status) && random.nextDouble() < 0.3) {
+            payments.add(paymentId, orderId, method, "FAILED", BigDecimal.ZERO.setScale(2), null);
+        }
+    }
+
+    private void writeReturn(SplittableRandom random, long orderId, long productId, int qty, String orderStatus,
+                             OffsetDateTime shippedAt, String warehouse, long itemId,
+                             CustomDynamicRowWriter returns, CustomDynamicRowWriter movements) throws SQLException {
+        OffsetDateTime requestedAt = shippedAt.plusDays(2 + random.nextInt(9));
+        String status;
+        if ("REFUNDED".equals(orderStatus)) {
+            status = "REFUNDED";
+        } else {
+            double draw = random.nextDouble();
+            status = draw < 0.4 ? "REQUESTED" : draw < 0.8 ? "APPROVED" : "REJECTED";
+        }
+        OffsetDateTime resolvedAt = "REQUESTED".equals(status) ? null : requestedAt.plusDays(1 + random.nextInt(5));
+        returns.add(base.returnEntry() + orderId - base.order(), orderId, productId, qty,
+                RETURN_REASONS[random.nextInt(RETURN_REASONS.length)], status, requestedAt, resolvedAt);
+        if ("REFUNDED".equals(status)) {
+            movements.add(movementId(itemId, 1), productId, "IN", qty, warehouse, resolvedAt.plusMinutes(10),
+                    "return order " + orderId);
+        }
+    }
+
+    private static void flush(Connection connection, CustomDynamicRowWriter... writers) throws SQLException {
+        // parents before children, so foreign keys hold at every commit
+        for (CustomDynamicRowWriter writer : writers) {
+            writer.flush();
+        }
+        connection.commit();
+    }
+
+    private String status(SplittableRandom random, OffsetDateTime createdAt) {
+        long ageHours = Duration.between(createdAt, periodStart.plusSeconds(periodSeconds)).toHours();
+        double draw = random.nextDouble();
+        if (ageHours < 24) {
+            return draw < 0.40 ? "CREATED" : draw < 0.85 ? "PAID" : "CANCELLED";
+        }
+        if (ageHours < 72) {
+            return draw < 0.05 ? "CREATED" : draw < 0.45 ? "PAID" : draw < 0.90 ? "SHIPPED" : "CANCELLED";
+        }
+        return draw < 0.03 ? "CREATED" : draw < 0.09 ? "PAID" : draw < 0.84 ? "SHIPPED" : draw < 0.94 ? "CANCELLED" : "REFUNDED";
+    }
+
+    // Volume grows linearly over the period: the i-th of n orders falls at sqrt(i / n) of it.
+    private OffsetDateTime createdAt(SplittableRandom random, long index) {
+        double position = Math.sqrt((index + random.nextDouble()) / settings.orders());
+        long day = Math.min(settings.days() - 1, (long) (position * settings.days()));
+        int hour = pickIndex(random, HOUR_WEIGHTS);
+        return periodStart.plusDays(day).plusHours(hour).plusSeconds(random.nextInt(3600));
+    }
+
+    private OffsetDateTime signupAt(long customerIndex) {
+        return signupStart.plusSeconds(signupSeconds * customerIndex / settings.customers());
+    }
+
+    // Only customers who had signed up by then, skewed towards the earliest (and most loyal) ones.
+    private long customerFor(SplittableRandom random, OffsetDateTime createdAt) {
+        long elapsed = Duration.between(signupStart, createdAt).toSeconds();
+        long signedUp = Math.max(1, Math.min(settings.customers(), settings.customers() * elapsed / signupSeconds));
+        return base.customer() + 1 + skewed(random, signedUp, 2);
+    }
+
+    private long distinctProduct(SplittableRandom random, long[] chosen, int count) {
+        while (true) {
+            long candidate = skewed(random, settings.products(), 3);
+            boolean seen = false;
+            for (int i = 0; i < count; i++) {
+                seen |= chosen[i] == candidate;
+            }
+            if (!seen) {
+                return candidate;
+            }
+        }
+    }
+
+    private long itemId(long orderIndex, int k) {
+        return base.item() + orderIndex * MAX_ITEMS_PER_ORDER + k + 1;
+    }
+
+    private long movementId(long itemId, int slot) {
+        long initial = (long) settings.products() * WAREHOUSES.length;
+        return base.movement() + initial + (itemId - base.item()) * MOVEMENT_SLOTS_PER_ITEM + slot;
+    }
+
+    private void resetSequences(Connection connection) throws SQLException {
+        String product = connection.getMetaData().getDatabaseProductName();
+        String[][] serials = {
+                {"customers", "customer_id"}, {"categories", "category_id"}, {"products", "product_id"},
+                {"inventory_movements", "movement_id"}, {"orders", "order_id"}, {"order_items", "order_item_id"},
+                {"payments", "payment_id"}, {"returns", "return_id"}};
+        try (Statement statement = connection.createStatement()) {
+            for (String[] serial : serials) {
+                String table = settings.schema() + "." + serial[0];
+                long next = Ids.max(statement, table, serial[1]) + 1;
+                if ("PostgreSQL".equals(product)) {
+                    statement.execute("SELECT setval(pg_get_serial_sequence('" + table + "', '" + serial[1] + "'), " + next
+                            + ", false)");
+                    statement.execute("ANALYZE " + table);
+                } else if ("H2".equals(product)) {
+                    statement.execute("ALTER TABLE " + table + " ALTER COLUMN " + serial[1] + " RESTART WITH " + next);
+                } else {
+                    log("sequence of %s.%s not moved on %s", table, serial[1], product);
+                }
+            }
+        }
+    }
+
+    private CustomDynamicRowWriter writer(Connection connection, String table, String... columns) throws SQLException {
+        return CustomDynamicRowWriter.open(connection, settings.schema() + "." + table, columns);
+    }
+
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(settings.url(), settings.username(), settings.password());
+    }
+
+    private void log(String format, Object... args) {
+        long seconds = Duration.ofNanos(System.nanoTime() - startedAt).toSeconds();
+        System.out.printf("[generator %4ds] %s%n", seconds, String.format(format, args));
+    }
+
+    private static void await(List<Future<?>> futures) throws Exception {
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    // 0..bound-1, index 0 the most likely; a higher power makes the head heavier.
+    private static long skewed(SplittableRandom random, long bound, int power) {
+        return Math.min(bound - 1, (long) (bound * Math.pow(random.nextDouble(), power)));
+    }
+
+    private static String pick(SplittableRandom random, String[] values, double[] weights) {
+        return values[pickIndex(random, weights)];
+    }
+
+    private static int pickIndex(SplittableRandom random, double[] weights) {
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        double draw = random.nextDouble() * total;
+        for (int i = 0; i < weights.length; i++) {
+            draw -= weights[i];
+            if (draw < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        // Box-Muller; SplittableRandom has no nextGaussian
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    public record Settings(
+            String url,
+            String username,
+            String password,
+            String schema,
+            long orders,
+            long customers,
+            int products,
+            int categories,
+            int days,
+            LocalDate endDate,
+            int threads,
+            int batchSize,
+            long seed
+    ) {
+        static Settings fromSystemProperties() {
+            String url = System.getProperty("generator.url");
+            if (url == null) {
+                throw new IllegalArgumentException("generator.url is required, e.g. -Dgenerator.url=jdbc:postgresql://localhost:5432/reporting");
+            }
+            return defaults(url, System.getProperty("generator.username"), System.getProperty("generator.password"),
+                    Long.getLong("generator.orders", 1_000_000L));
+        }
+
+        static Settings defaults(String url, String username, String password, long orders) {
+            return new Settings(
+                    url,
+                    username,
+                    password,
+                    System.getProperty("generator.schema", "test"),
+                    orders,
+                    Long.getLong("generator.customers", Math.max(1, orders / 5)),
+                    Integer.getInteger("generator.products", (int) Math.clamp(orders / 200, 100, 50_000)),
+                    Integer.getInteger("generator.categories", 40),
+                    Integer.getInteger("generator.days", 730),
+                    LocalDate.parse(System.getProperty("generator.endDate", LocalDate.now(ZONE).toString())),
+                    Integer.getInteger("generator.threads", Runtime.getRuntime().availableProcessors()),
+                    Integer.getInteger("generator.batchSize", 5_000),
+                    Long.getLong("generator.seed", 42L));
+        }
+    }
+
+    private record Catalog(BigDecimal[] listPrices) {
+    }
+
+    // Highest existing id per table; generated ids start right above them.
+    private record Ids(long customer, long category, long product, long movement, long order, long item, long payment,
+                       long returnEntry) {
+        static Ids read(Connection connection, String schema) throws SQLException {
+            try (Statement statement = connection.createStatement()) {
+                return new Ids(
+                        max(statement, schema + ".customers", "customer_id"),
+                        max(statement, schema + ".categories", "category_id"),
+                        max(statement, schema + ".products", "product_id"),
+                        max(statement, schema + ".inventory_movements", "movement_id"),
+                        max(statement, schema + ".orders", "order_id"),
+                        max(statement, schema + ".order_items", "order_item_id"),
+                        max(statement, schema + ".payments", "payment_id"),
+                        max(statement, schema + ".returns", "return_id"));
+            }
+        }
+
+        static long max(Statement statement, String table, String column) throws SQLException {
+            try (ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(" + column + "), 0) FROM " + table)) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        }
+    }
+}
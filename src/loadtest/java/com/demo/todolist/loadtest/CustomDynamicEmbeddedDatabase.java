@@ -0,0 +1,73 @@
+package com.demo.todolist.loadtest;
+
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+// In-memory H2 in PostgreSQL mode seeded from sql/test_ddl.sql into the "test" schema the entities map to.
+// The connection opened here stays open for the whole run so the database outlives pool churn.
+final class CustomDynamicEmbeddedDatabase implements AutoCloseable {
+
+    static final String URL = "jdbc:h2:mem:loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+            + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+    static final String USERNAME = "loadtest";
+    static final String PASSWORD = "loadtest";
+
+    private final Connection connection;
+
+    private CustomDynamicEmbeddedDatabase(Connection connection) {
+        this.connection = connection;
+    }
+
+    static CustomDynamicEmbeddedDatabase seed() throws SQLException, IOException {
+        Connection connection = DriverManager.getConnection(URL, USERNAME, PASSWORD);
+        String script = new ClassPathResource("sql/test_ddl.sql").getContentAsString(StandardCharsets.UTF_8);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SCHEMA test");
+            statement.execute("SET SCHEMA test");
+            for (String sql : statements(script)) {
+                statement.execute(sql);
+            }
+        } catch (SQLException ex) {
+            connection.close();
+            throw ex;
+        }
+        return new CustomDynamicEmbeddedDatabase(connection);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        } finally {
+            connection.close();
+        }
+    }
+
+    // The script is plain PostgreSQL; H2 only needs the two type names it spells differently.
+    private static List<String> statements(String script) {
+        StringBuilder body = new StringBuilder();
+        for (String line : script.split("\\R")) {
+            if (!line.trim().startsWith("--")) {
+                body.append(line).append('\n');
+            }
+        }
+        String translated = body.toString()
+                .replace("TIMESTAMPTZ", "TIMESTAMP WITH TIME ZONE")
+                .replaceAll("\\bTEXT\\b", "VARCHAR");
+        List<String> statements = new ArrayList<>();
+        for (String sql : translated.split(";")) {
+            if (!sql.isBlank()) {
+                statements.add(sql.trim());
+            }
+        }
+        return statements;
+    }
+}
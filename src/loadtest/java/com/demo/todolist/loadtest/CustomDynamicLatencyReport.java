@@ -0,0 +1,108 @@
+package com.demo.todolist.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Per-endpoint latency samples. Every worker records into its own instance, so the hot path is uncontended;
+// the instances are merged once the run is over.
+final class CustomDynamicLatencyReport {
+
+    private final Map<String, Samples> endpoints = new TreeMap<>();
+
+    void record(String endpoint, long nanos, boolean ok) {
+        endpoints.computeIfAbsent(endpoint, ignored -> new Samples()).add(nanos, ok);
+    }
+
+    static CustomDynamicLatencyReport merge(List<CustomDynamicLatencyReport> reports) {
+        CustomDynamicLatencyReport merged = new CustomDynamicLatencyReport();
+        for (CustomDynamicLatencyReport report : reports) {
+            report.endpoints.forEach((endpoint, samples) ->
+                    merged.endpoints.computeIfAbsent(endpoint, ignored -> new Samples()).addAll(samples));
+        }
+        return merged;
+    }
+
+    void print(PrintStream out, double seconds) {
+        out.printf("%-22s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        endpoints.forEach((endpoint, samples) -> {
+            long[] sorted = samples.sorted();
+            out.printf("%-22s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    endpoint, sorted.length, samples.errors, sorted.length / seconds,
+                    millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.99)),
+                    millis(percentile(sorted, 0.999)), millis(percentile(sorted, 1.0)));
+        });
+    }
+
+    void writeJson(Path file, ObjectMapper objectMapper, double seconds, Map<String, Object> settings) throws IOException {
+        ObjectNode root = objectMapper.createObjectNode();
+        root.set("settings", objectMapper.valueToTree(settings));
+        root.put("measuredSeconds", seconds);
+        ArrayNode rows = root.putArray("endpoints");
+        endpoints.forEach((endpoint, samples) -> {
+            long[] sorted = samples.sorted();
+            rows.addObject()
+                    .put("endpoint", endpoint)
+                    .put("requests", sorted.length)
+                    .put("errors", samples.errors)
+                    .put("requestsPerSecond", sorted.length / seconds)
+                    .put("p50Ms", millis(percentile(sorted, 0.50)))
+                    .put("p99Ms", millis(percentile(sorted, 0.99)))
+                    .put("p999Ms", millis(percentile(sorted, 0.999)))
+                    .put("maxMs", millis(percentile(sorted, 1.0)));
+        });
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), root);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000d;
+    }
+
+    private static final class Samples {
+        private long[] nanos = new long[1024];
+        private int size;
+        private long errors;
+
+        void add(long value, boolean ok) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = value;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        void addAll(Samples other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.nanos[i], true);
+            }
+            errors += other.errors;
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(nanos, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.demo.todolist.loadtest;
+
+import com.demo.todolist.TodolistApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Starts the application on a random port against CustomDynamicEmbeddedDatabase and runs `concurrency` sessions
+// in parallel. A session is connect, `queriesPerSession` POSTs drawn from the weighted `mix`, then close; sessions
+// repeat until the run ends, so connection registry churn scales with the mix. Settings are loadtest.* system
+// properties (loadtest.orders adds generated data first); remaining program arguments are passed to the
+// application, e.g. --dynamic.query.cache.enabled=true.
+public final class CustomDynamicLoadTest {
+
+    private static final String DATABASE_NAME = "loadtest";
+    private static final String DEFAULT_MIX = "customers:2,products:2,orders:3,orders/graph:1,order-items:1,payments:1";
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final URI baseUri;
+    private final int limit;
+    private final String[] mix;
+
+    private CustomDynamicLoadTest(URI baseUri, int limit, String[] mix) {
+        this.baseUri = baseUri;
+        this.limit = limit;
+        this.mix = mix;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.getInteger("loadtest.concurrency", 32);
+        int warmupSeconds = Integer.getInteger("loadtest.warmupSeconds", 5);
+        int durationSeconds = Integer.getInteger("loadtest.durationSeconds", 30);
+        int queriesPerSession = Integer.getInteger("loadtest.queriesPerSession", 50);
+        int limit = Integer.getInteger("loadtest.limit", 50);
+        // on top of the seed rows; 0 keeps the data set at the size of sql/test_ddl.sql
+        long orders = Long.getLong("loadtest.orders", 0L);
+        String mixSetting = System.getProperty("loadtest.mix", DEFAULT_MIX);
+        Path output = Path.of(System.getProperty("loadtest.output", "build/reports/loadtest/results.json"));
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("concurrency", concurrency);
+        settings.put("warmupSeconds", warmupSeconds);
+        settings.put("durationSeconds", durationSeconds);
+        settings.put("queriesPerSession", queriesPerSession);
+        settings.put("limit", limit);
+        settings.put("orders", orders);
+        settings.put("mix", mixSetting);
+        settings.put("applicationArgs", List.of(args));
+
+        try (CustomDynamicEmbeddedDatabase ignored = CustomDynamicEmbeddedDatabase.seed();
+             ConfigurableApplicationContext application = start(args, orders)) {
+            int port = ((WebServerApplicationContext) application).getWebServer().getPort();
+            CustomDynamicLoadTest loadTest = new CustomDynamicLoadTest(URI.create("http://localhost:" + port + "/"),
+                    limit, weightedMix(mixSetting));
+            CustomDynamicLatencyReport report = loadTest.run(concurrency, warmupSeconds, durationSeconds, queriesPerSession);
+            report.print(System.out, durationSeconds);
+            report.writeJson(output, loadTest.objectMapper, durationSeconds, settings);
+            System.out.println("results written to " + output.toAbsolutePath());
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String[] args, long orders) throws Exception {
+        if (orders > 0) {
+            new CustomDynamicDataGenerator(CustomDynamicDataGenerator.Settings.defaults(CustomDynamicEmbeddedDatabase.URL,
+                    CustomDynamicEmbeddedDatabase.USERNAME, CustomDynamicEmbeddedDatabase.PASSWORD, orders)).generate();
+        }
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--dynamic.datasource.databases." + DATABASE_NAME + ".db-type=POSTGRES",
+                "--dynamic.datasource.databases." + DATABASE_NAME + ".url=" + CustomDynamicEmbeddedDatabase.URL,
+                "--dynamic.datasource.databases." + DATABASE_NAME + ".driver-class-name=org.h2.Driver",
+                // checkpoint files would land in the working directory
+                "--dynamic.query.checkpoints.enabled=false"));
+        // later arguments win, so the caller can override any of the above
+        arguments.addAll(List.of(args));
+        return SpringApplication.run(TodolistApplication.class, arguments.toArray(String[]::new));
+    }
+
+    // "orders:3,customers:1" becomes a pick list with each endpoint repeated by its weight.
+    private static String[] weightedMix(String setting) {
+        List<String> endpoints = new ArrayList<>();
+        for (String entry : setting.split(",")) {
+            String[] parts = entry.trim().split(":");
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+            for (int i = 0; i < weight; i++) {
+                endpoints.add(parts[0].trim());
+            }
+        }
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix is empty");
+        }
+        return endpoints.toArray(String[]::new);
+    }
+
+    private CustomDynamicLatencyReport run(int concurrency, int warmupSeconds, int durationSeconds, int queriesPerSession)
+            throws Exception {
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long endAt = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        List<Future<CustomDynamicLatencyReport>> workers = new ArrayList<>(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(() -> runSessions(measureFrom, endAt, queriesPerSession)));
+            }
+            List<CustomDynamicLatencyReport> reports = new ArrayList<>(concurrency);
+            for (Future<CustomDynamicLatencyReport> worker : workers) {
+                reports.add(worker.get());
+            }
+            return CustomDynamicLatencyReport.merge(reports);
+        }
+    }
+
+    private CustomDynamicLatencyReport runSessions(long measureFrom, long endAt, int queriesPerSession) {
+        CustomDynamicLatencyReport report = new CustomDynamicLatencyReport();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < endAt) {
+            String connectionId = connect(report, measureFrom);
+            if (connectionId == null) {
+                continue;
+            }
+            for (int i = 0; i < queriesPerSession && System.nanoTime() < endAt; i++) {
+                String endpoint = mix[random.nextInt(mix.length)];
+                String body = "{\"connectionId\":\"" + connectionId + "\",\"limit\":" + limit + "}";
+                send(report, measureFrom, endpoint, HttpRequest.newBuilder(baseUri.resolve("api/postgres/db/" + endpoint))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build());
+            }
+            send(report, measureFrom, "close", multipart("api/db/close", Map.of("connectionId", connectionId)));
+        }
+        return report;
+    }
+
+    private String connect(CustomDynamicLatencyReport report, long measureFrom) {
+        HttpResponse<String> response = send(report, measureFrom, "connect", multipart("api/db/connect", Map.of(
+                "databaseName", DATABASE_NAME,
+                "username", CustomDynamicEmbeddedDatabase.USERNAME,
+                "password", CustomDynamicEmbeddedDatabase.PASSWORD)));
+        if (response == null || response.statusCode() != 200) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(response.body()).path("connectionId").asText(null);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private HttpResponse<String> send(CustomDynamicLatencyReport report, long measureFrom, String endpoint, HttpRequest request) {
+        long startedAt = System.nanoTime();
+        HttpResponse<String> response = null;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException ex) {
+            // counted as an error below
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("load test interrupted", ex);
+        }
+        if (startedAt >= measureFrom) {
+            boolean ok = response != null && response.statusCode() / 100 == 2;
+            report.record(endpoint, System.nanoTime() - startedAt, ok);
+        }
+        return response;
+    }
+
+    // connect and close only accept multipart/form-data
+    private HttpRequest multipart(String path, Map<String, String> fields) {
+        String boundary = "loadtest-" + UUID.randomUUID();
+        StringBuilder body = new StringBuilder();
+        fields.forEach((name, value) -> body.append("--").append(boundary).append("\r\n")
+                .append("Content-Disposition: form-data; name=\"").append(name).append("\"\r\n\r\n")
+                .append(value).append("\r\n"));
+        body.append("--").append(boundary).append("--\r\n");
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString(), StandardCharsets.UTF_8))
+                .build();
+    }
+}
@@ -0,0 +1,110 @@
+package com.demo.todolist.loadtest;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+// Buffers generated rows for one table and writes them with COPY on PostgreSQL or JDBC batches elsewhere.
+// The caller flushes tables in foreign key order and commits the connection afterwards.
+abstract class CustomDynamicRowWriter implements AutoCloseable {
+
+    protected int pending;
+
+    static CustomDynamicRowWriter open(Connection connection, String table, String... columns) throws SQLException {
+        if (connection.isWrapperFor(PGConnection.class)) {
+            return new Copy(connection.unwrap(PGConnection.class).getCopyAPI(), table, columns);
+        }
+        return new Batch(connection, table, columns);
+    }
+
+    abstract void add(Object... values) throws SQLException;
+
+    abstract void flush() throws SQLException;
+
+    @Override
+    public void close() throws SQLException {
+    }
+
+    private static final class Copy extends CustomDynamicRowWriter {
+        private final CopyManager copyManager;
+        private final String sql;
+        private final StringBuilder buffer = new StringBuilder(1 << 20);
+
+        Copy(CopyManager copyManager, String table, String[] columns) {
+            this.copyManager = copyManager;
+            this.sql = "COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT csv)";
+        }
+
+        @Override
+        void add(Object... values) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                Object value = values[i];
+                // an unquoted empty field is NULL in CSV mode, a quoted one is the empty string
+                if (value instanceof String text) {
+                    buffer.append('"').append(text.replace("\"", "\"\"")).append('"');
+                } else if (value instanceof BigDecimal decimal) {
+                    buffer.append(decimal.toPlainString());
+                } else if (value != null) {
+                    buffer.append(value);
+                }
+            }
+            buffer.append('\n');
+            pending++;
+        }
+
+        @Override
+        void flush() throws SQLException {
+            if (pending == 0) {
+                return;
+            }
+            try {
+                copyManager.copyIn(sql, new StringReader(buffer.toString()));
+            } catch (IOException ex) {
+                throw new SQLException("COPY failed: " + sql, ex);
+            }
+            buffer.setLength(0);
+            pending = 0;
+        }
+    }
+
+    private static final class Batch extends CustomDynamicRowWriter {
+        private final PreparedStatement statement;
+
+        Batch(Connection connection, String table, String[] columns) throws SQLException {
+            this.statement = connection.prepareStatement("INSERT INTO " + table + " (" + String.join(", ", columns)
+                    + ") VALUES (" + "?, ".repeat(columns.length - 1) + "?)");
+        }
+
+        @Override
+        void add(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                statement.setObject(i + 1, values[i]);
+            }
+            statement.addBatch();
+            pending++;
+        }
+
+        @Override
+        void flush() throws SQLException {
+            if (pending == 0) {
+                return;
+            }
+            statement.executeBatch();
+            pending = 0;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            statement.close();
+        }
+    }
+}
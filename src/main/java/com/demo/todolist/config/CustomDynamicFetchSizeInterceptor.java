@@ -0,0 +1,42 @@
+package com.demo.todolist.config;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.Statement;
+
+@Component
+@Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}))
+public class CustomDynamicFetchSizeInterceptor implements Interceptor {
+
+    private static final ThreadLocal<Integer> FETCH_SIZE = new ThreadLocal<>();
+
+    public static void runWithFetchSize(int fetchSize, Runnable action) {
+        Integer previous = FETCH_SIZE.get();
+        FETCH_SIZE.set(fetchSize);
+        try {
+            action.run();
+        } finally {
+            if (previous == null) {
+                FETCH_SIZE.remove();
+            } else {
+                FETCH_SIZE.set(previous);
+            }
+        }
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        Integer fetchSize = FETCH_SIZE.get();
+        if (fetchSize != null && result instanceof Statement statement) {
+            statement.setFetchSize(fetchSize);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,25 @@
+package com.demo.todolist.config;
+
+import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.pagination.dialects.IDialect;
+import com.demo.todolist.customdynamic.config.CustomDynamicDataSourceContext;
+import com.demo.todolist.customdynamic.dialect.CustomDynamicSqlDialect;
+import com.demo.todolist.customdynamic.service.CustomDynamicDataSourceRegistry;
+import org.apache.ibatis.executor.Executor;
+
+// Resolves the pagination dialect from the routed connection's configured DbType instead of reading JDBC
+// metadata on every query. The default datasource keeps the metadata-based detection.
+public class CustomDynamicPaginationInterceptor extends PaginationInnerInterceptor {
+
+    private final CustomDynamicDataSourceRegistry registry;
+
+    public CustomDynamicPaginationInterceptor(CustomDynamicDataSourceRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected IDialect findIDialect(Executor executor) {
+        CustomDynamicSqlDialect dialect = registry.findDialect(CustomDynamicDataSourceContext.getCurrentKey());
+        return dialect == null ? super.findIDialect(executor) : dialect.getPaginationDialect();
+    }
+}
@@ -0,0 +1,18 @@
+package com.demo.todolist.config;
+
+import com.demo.todolist.customdynamic.config.CustomDynamicDataSourceContext;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+@Configuration
+@EnableConfigurationProperties(CustomDynamicQueryProperties.class)
+public class CustomDynamicQueryConfig {
+
+    // Picked up by the auto-configured application task executors (platform or virtual).
+    @Bean
+    public TaskDecorator customDynamicRoutingTaskDecorator() {
+        return CustomDynamicDataSourceContext::wrap;
+    }
+}
@@ -0,0 +1,527 @@
+package com.demo.todolist.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "dynamic.query")
+public class CustomDynamicQueryProperties {
+    private Batch batch = new Batch();
+    private Cache cache = new Cache();
+    private Dimensions dimensions = new Dimensions();
+    private Stock stock = new Stock();
+    private Checkpoints checkpoints = new Checkpoints();
+    private Snapshot snapshot = new Snapshot();
+    private Search search = new Search();
+    private SlowQuery slowQuery = new SlowQuery();
+    private Bulkhead bulkhead = new Bulkhead();
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public void setBatch(Batch batch) {
+        this.batch = batch;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    public Dimensions getDimensions() {
+        return dimensions;
+    }
+
+    public void setDimensions(Dimensions dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    public Stock getStock() {
+        return stock;
+    }
+
+    public void setStock(Stock stock) {
+        this.stock = stock;
+    }
+
+    public Checkpoints getCheckpoints() {
+        return checkpoints;
+    }
+
+    public void setCheckpoints(Checkpoints checkpoints) {
+        this.checkpoints = checkpoints;
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(Snapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public void setSearch(Search search) {
+        this.search = search;
+    }
+
+    public static class Batch {
+        private int threads = 16;
+        private int queueCapacity = 256;
+        private int maxQueries = 20;
+        private long defaultTimeoutMs = 5000;
+        private long maxTimeoutMs = 30000;
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getMaxQueries() {
+            return maxQueries;
+        }
+
+        public void setMaxQueries(int maxQueries) {
+            this.maxQueries = maxQueries;
+        }
+
+        public long getDefaultTimeoutMs() {
+            return defaultTimeoutMs;
+        }
+
+        public void setDefaultTimeoutMs(long defaultTimeoutMs) {
+            this.defaultTimeoutMs = defaultTimeoutMs;
+        }
+
+        public long getMaxTimeoutMs() {
+            return maxTimeoutMs;
+        }
+
+        public void setMaxTimeoutMs(long maxTimeoutMs) {
+            this.maxTimeoutMs = maxTimeoutMs;
+        }
+    }
+
+    public static class Cache {
+        private boolean enabled = false;
+        // Upper bound on the number of cached rows across all connections.
+        private long maximumRows = 100_000;
+        private Duration defaultTtl = Duration.ofSeconds(30);
+        // Per-entity overrides keyed by endpoint name, e.g. categories or order-items.
+        private Map<String, Duration> ttl = new HashMap<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaximumRows() {
+            return maximumRows;
+        }
+
+        public void setMaximumRows(long maximumRows) {
+            this.maximumRows = maximumRows;
+        }
+
+        public Duration getDefaultTtl() {
+            return defaultTtl;
+        }
+
+        public void setDefaultTtl(Duration defaultTtl) {
+            this.defaultTtl = defaultTtl;
+        }
+
+        public Map<String, Duration> getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Map<String, Duration> ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    public static class Dimensions {
+        // New rows are picked up by watermark at most this often.
+        private Duration refreshInterval = Duration.ofSeconds(30);
+        // Updates to existing rows are only seen by a full reload.
+        private Duration fullReloadInterval = Duration.ofMinutes(15);
+
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+
+        public Duration getFullReloadInterval() {
+            return fullReloadInterval;
+        }
+
+        public void setFullReloadInterval(Duration fullReloadInterval) {
+            this.fullReloadInterval = fullReloadInterval;
+        }
+    }
+
+    public static class Stock {
+        // Lookups older than this first apply movements past the watermark.
+        private Duration refreshInterval = Duration.ofSeconds(2);
+        private int refreshBatchSize = 10_000;
+        // Every refresh re-reads this many ids below the highest one seen, so movements that commit out of id
+        // order are still applied; applied ids are remembered and skipped.
+        private int lateCommitWindow = 1_000;
+        // Rebuilds the balances from a full aggregate, catching anything that committed outside the window.
+        private Duration fullReloadInterval = Duration.ofMinutes(15);
+
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+
+        public int getRefreshBatchSize() {
+            return refreshBatchSize;
+        }
+
+        public void setRefreshBatchSize(int refreshBatchSize) {
+            this.refreshBatchSize = refreshBatchSize;
+        }
+
+        public int getLateCommitWindow() {
+            return lateCommitWindow;
+        }
+
+        public void setLateCommitWindow(int lateCommitWindow) {
+            this.lateCommitWindow = lateCommitWindow;
+        }
+
+        public Duration getFullReloadInterval() {
+            return fullReloadInterval;
+        }
+
+        public void setFullReloadInterval(Duration fullReloadInterval) {
+            this.fullReloadInterval = fullReloadInterval;
+        }
+    }
+
+    public static class Checkpoints {
+        private boolean enabled = false;
+        private String directory = "data/stock-checkpoints";
+        // Minimum age of the latest checkpoint before a new one is written.
+        private Duration interval = Duration.ofHours(1);
+        private int retain = 168;
+        // The checkpoint watermark stays this many ids below MAX(movement_id), so ids that were still uncommitted
+        // when it was taken are picked up later as late rows instead of being lost.
+        private int watermarkLag = 1_000;
+        // Checkpoints are normally built from the previous one; this often one is rebuilt from a full aggregate.
+        private Duration fullRebuildInterval = Duration.ofHours(24);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+
+        public int getRetain() {
+            return retain;
+        }
+
+        public void setRetain(int retain) {
+            this.retain = retain;
+        }
+
+        public int getWatermarkLag() {
+            return watermarkLag;
+        }
+
+        public void setWatermarkLag(int watermarkLag) {
+            this.watermarkLag = watermarkLag;
+        }
+
+        public Duration getFullRebuildInterval() {
+            return fullRebuildInterval;
+        }
+
+        public void setFullRebuildInterval(Duration fullRebuildInterval) {
+            this.fullRebuildInterval = fullRebuildInterval;
+        }
+    }
+
+    public static class Snapshot {
+        private boolean enabled = false;
+        // New orders are appended by order_id watermark at most this often.
+        private Duration refreshInterval = Duration.ofSeconds(10);
+        // Every refresh re-reads this many ids below the highest loaded one, so orders that commit out of id order
+        // are still appended; loaded ids are remembered and skipped.
+        private int lateCommitWindow = 1_000;
+        // Status changes and late order items are only seen by a full reload.
+        private Duration fullReloadInterval = Duration.ofMinutes(10);
+        private int loadBatchSize = 50_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+
+        public int getLateCommitWindow() {
+            return lateCommitWindow;
+        }
+
+        public void setLateCommitWindow(int lateCommitWindow) {
+            this.lateCommitWindow = lateCommitWindow;
+        }
+
+        public Duration getFullReloadInterval() {
+            return fullReloadInterval;
+        }
+
+        public void setFullReloadInterval(Duration fullReloadInterval) {
+            this.fullReloadInterval = fullReloadInterval;
+        }
+
+        public int getLoadBatchSize() {
+            return loadBatchSize;
+        }
+
+        public void setLoadBatchSize(int loadBatchSize) {
+            this.loadBatchSize = loadBatchSize;
+        }
+    }
+
+    public SlowQuery getSlowQuery() {
+        return slowQuery;
+    }
+
+    public void setSlowQuery(SlowQuery slowQuery) {
+        this.slowQuery = slowQuery;
+    }
+
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    public void setBulkhead(Bulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+    }
+
+    public static class Search {
+        private static final int MAX_CANDIDATES_LIMIT = 1000;
+
+        private boolean enabled = false;
+        // Above this many candidate ids the query keeps its plain LIKE. Capped at 1000, Oracle's IN list limit.
+        private int maxCandidates = MAX_CANDIDATES_LIMIT;
+        private Duration refreshInterval = Duration.ofSeconds(30);
+        // Every refresh re-reads this many ids below the highest indexed one, so rows that commit out of id order
+        // are still indexed; searches also accept every id in that window.
+        private int lateCommitWindow = 1_000;
+        // Renamed rows are only seen by a full rebuild, so this bounds how stale a name search can be.
+        private Duration fullReloadInterval = Duration.ofMinutes(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxCandidates() {
+            return maxCandidates;
+        }
+
+        public void setMaxCandidates(int maxCandidates) {
+            if (maxCandidates < 0 || maxCandidates > MAX_CANDIDATES_LIMIT) {
+                throw new IllegalArgumentException("max-candidates must be between 0 and " + MAX_CANDIDATES_LIMIT);
+            }
+            this.maxCandidates = maxCandidates;
+        }
+
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+
+        public int getLateCommitWindow() {
+            return lateCommitWindow;
+        }
+
+        public void setLateCommitWindow(int lateCommitWindow) {
+            this.lateCommitWindow = lateCommitWindow;
+        }
+
+        public Duration getFullReloadInterval() {
+            return fullReloadInterval;
+        }
+
+        public void setFullReloadInterval(Duration fullReloadInterval) {
+            this.fullReloadInterval = fullReloadInterval;
+        }
+    }
+
+    public static class SlowQuery {
+        private boolean enabled = true;
+        private Duration threshold = Duration.ofMillis(500);
+        // Number of slow statements kept for /api/admin/slow-queries; the oldest are overwritten.
+        private int capacity = 200;
+        private boolean explain = true;
+        // A statement shape is explained at most once per database within this window.
+        private Duration explainCooldown = Duration.ofMinutes(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getThreshold() {
+            return threshold;
+        }
+
+        public void setThreshold(Duration threshold) {
+            this.threshold = threshold;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public boolean isExplain() {
+            return explain;
+        }
+
+        public void setExplain(boolean explain) {
+            this.explain = explain;
+        }
+
+        public Duration getExplainCooldown() {
+            return explainCooldown;
+        }
+
+        public void setExplainCooldown(Duration explainCooldown) {
+            this.explainCooldown = explainCooldown;
+        }
+    }
+
+    public static class Bulkhead {
+        private boolean enabled = true;
+        private int maxConcurrentPerConnection = 4;
+        // Queued requests still hold a request thread, so this also bounds the threads one connection can occupy.
+        private int maxQueuedPerConnection = 32;
+        // Shared by all connection ids of one configured database; keep it near that database's pool size.
+        private int maxConcurrentPerDatabase = 16;
+        private Duration queueTimeout = Duration.ofSeconds(5);
+        // Sent as Retry-After with every 429.
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxConcurrentPerConnection() {
+            return maxConcurrentPerConnection;
+        }
+
+        public void setMaxConcurrentPerConnection(int maxConcurrentPerConnection) {
+            this.maxConcurrentPerConnection = maxConcurrentPerConnection;
+        }
+
+        public int getMaxQueuedPerConnection() {
+            return maxQueuedPerConnection;
+        }
+
+        public void setMaxQueuedPerConnection(int maxQueuedPerConnection) {
+            this.maxQueuedPerConnection = maxQueuedPerConnection;
+        }
+
+        public int getMaxConcurrentPerDatabase() {
+            return maxConcurrentPerDatabase;
+        }
+
+        public void setMaxConcurrentPerDatabase(int maxConcurrentPerDatabase) {
+            this.maxConcurrentPerDatabase = maxConcurrentPerDatabase;
+        }
+
+        public Duration getQueueTimeout() {
+            return queueTimeout;
+        }
+
+        public void setQueueTimeout(Duration queueTimeout) {
+            this.queueTimeout = queueTimeout;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        public void setRetryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+    }
+}
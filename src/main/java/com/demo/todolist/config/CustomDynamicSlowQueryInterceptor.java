@@ -0,0 +1,53 @@
+package com.demo.todolist.config;
+
+import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
+import com.demo.todolist.service.CustomDynamicSlowQueryLog;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.sql.Statement;
+import java.time.Duration;
+
+// Times statements where they hit the driver, after MybatisPlusInterceptor has applied the dialect's pagination.
+@Component
+@Intercepts({
+        @Signature(type = StatementHandler.class, method = "query", args = {Statement.class, ResultHandler.class}),
+        @Signature(type = StatementHandler.class, method = "update", args = {Statement.class})
+})
+public class CustomDynamicSlowQueryInterceptor implements Interceptor {
+
+    private final CustomDynamicQueryProperties.SlowQuery settings;
+    private final CustomDynamicSlowQueryLog slowQueryLog;
+
+    // The log is resolved lazily: it borrows connections from the routing datasource the session factory is built from.
+    public CustomDynamicSlowQueryInterceptor(CustomDynamicQueryProperties properties,
+                                             @Lazy CustomDynamicSlowQueryLog slowQueryLog) {
+        this.settings = properties.getSlowQuery();
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object[] args = invocation.getArgs();
+        if (!settings.isEnabled() || (args.length > 1 && args[1] != null)) {
+            // streamed exports are paced by the client, not by the database
+            return invocation.proceed();
+        }
+        long startedAt = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - startedAt);
+            if (elapsed.compareTo(settings.getThreshold()) >= 0) {
+                PluginUtils.MPStatementHandler handler = PluginUtils.mpStatementHandler((StatementHandler) invocation.getTarget());
+                slowQueryLog.record(handler.mappedStatement().getId(), handler.boundSql(), handler.configuration(), elapsed);
+            }
+        }
+    }
+}
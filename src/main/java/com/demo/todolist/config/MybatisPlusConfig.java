@@ -1,17 +1,19 @@
 package com.demo.todolist.config;
 
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
-import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.demo.todolist.customdynamic.service.CustomDynamicDataSourceRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 
 @Configuration
 public class MybatisPlusConfig {
 
+    // The registry is resolved lazily: it sits on top of the routing datasource the session factory is built from.
     @Bean
-    public MybatisPlusInterceptor mybatisPlusInterceptor() {
+    public MybatisPlusInterceptor mybatisPlusInterceptor(@Lazy CustomDynamicDataSourceRegistry registry) {
         MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
-        interceptor.addInnerInterceptor(new PaginationInnerInterceptor());
+        interceptor.addInnerInterceptor(new CustomDynamicPaginationInterceptor(registry));
         return interceptor;
     }
 }
@@ -0,0 +1,47 @@
+package com.demo.todolist.controller;
+
+import com.demo.todolist.dto.CustomDynamicBulkheadStats;
+import com.demo.todolist.dto.CustomDynamicCacheStatsResponse;
+import com.demo.todolist.dto.CustomDynamicSlowQuery;
+import com.demo.todolist.service.CustomDynamicBulkheads;
+import com.demo.todolist.service.CustomDynamicQueryCache;
+import com.demo.todolist.service.CustomDynamicSlowQueryLog;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("api/admin")
+public class CustomDynamicAdminController {
+
+    private final CustomDynamicQueryCache queryCache;
+    private final CustomDynamicSlowQueryLog slowQueryLog;
+    private final CustomDynamicBulkheads bulkheads;
+
+    public CustomDynamicAdminController(CustomDynamicQueryCache queryCache,
+                                        CustomDynamicSlowQueryLog slowQueryLog,
+                                        CustomDynamicBulkheads bulkheads) {
+        this.queryCache = queryCache;
+        this.slowQueryLog = slowQueryLog;
+        this.bulkheads = bulkheads;
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CustomDynamicCacheStatsResponse> cacheStats() {
+        return ResponseEntity.ok(queryCache.stats());
+    }
+
+    // Newest first.
+    @GetMapping("/slow-queries")
+    public ResponseEntity<List<CustomDynamicSlowQuery>> slowQueries() {
+        return ResponseEntity.ok(slowQueryLog.recent());
+    }
+
+    @GetMapping("/bulkheads")
+    public ResponseEntity<List<CustomDynamicBulkheadStats>> bulkheads() {
+        return ResponseEntity.ok(bulkheads.stats());
+    }
+}
@@ -1,13 +1,24 @@
 package com.demo.todolist.controller;
 
+import com.demo.todolist.dto.CustomDynamicBatchRequest;
+import com.demo.todolist.dto.CustomDynamicBatchResponse;
 import com.demo.todolist.dto.CustomDynamicCategoryQueryRequest;
 import com.demo.todolist.dto.CustomDynamicCustomerQueryRequest;
+import com.demo.todolist.dto.CustomDynamicExportFormat;
 import com.demo.todolist.dto.CustomDynamicInventoryMovementQueryRequest;
+import com.demo.todolist.dto.CustomDynamicOrderGraph;
 import com.demo.todolist.dto.CustomDynamicOrderItemQueryRequest;
+import com.demo.todolist.dto.CustomDynamicOrderSnapshotQueryRequest;
+import com.demo.todolist.dto.CustomDynamicOrderSnapshotResponse;
 import com.demo.todolist.dto.CustomDynamicOrderQueryRequest;
+import com.demo.todolist.dto.CustomDynamicPageResponse;
 import com.demo.todolist.dto.CustomDynamicPaymentQueryRequest;
 import com.demo.todolist.dto.CustomDynamicProductQueryRequest;
 import com.demo.todolist.dto.CustomDynamicReturnQueryRequest;
+import com.demo.todolist.dto.CustomDynamicSalesQueryRequest;
+import com.demo.todolist.dto.CustomDynamicSalesResponse;
+import com.demo.todolist.dto.CustomDynamicStockQueryRequest;
+import com.demo.todolist.dto.CustomDynamicStockResponse;
 import com.demo.todolist.entity.Category;
 import com.demo.todolist.entity.Customer;
 import com.demo.todolist.entity.InventoryMovement;
@@ -16,63 +27,172 @@ import com.demo.todolist.entity.OrderItem;
 import com.demo.todolist.entity.Payment;
 import com.demo.todolist.entity.Product;
 import com.demo.todolist.entity.ReturnEntry;
+import com.demo.todolist.service.CustomDynamicAnalyticsService;
+import com.demo.todolist.service.CustomDynamicBatchService;
 import com.demo.todolist.service.CustomDynamicCommerceService;
+import com.demo.todolist.service.CustomDynamicExportService;
+import com.demo.todolist.service.CustomDynamicOrderSnapshotService;
+import com.demo.todolist.service.CustomDynamicStockService;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("api/postgres/db")
 public class CustomDynamicDbQueryController {
 
     private final CustomDynamicCommerceService commerceService;
+    private final CustomDynamicExportService exportService;
+    private final CustomDynamicBatchService batchService;
+    private final CustomDynamicStockService stockService;
+    private final CustomDynamicAnalyticsService analyticsService;
+    private final CustomDynamicOrderSnapshotService orderSnapshotService;
 
-    public CustomDynamicDbQueryController(CustomDynamicCommerceService commerceService) {
+    public CustomDynamicDbQueryController(CustomDynamicCommerceService commerceService,
+                                          CustomDynamicExportService exportService,
+                                          CustomDynamicBatchService batchService,
+                                          CustomDynamicStockService stockService,
+                                          CustomDynamicAnalyticsService analyticsService,
+                                          CustomDynamicOrderSnapshotService orderSnapshotService) {
         this.commerceService = commerceService;
+        this.exportService = exportService;
+        this.batchService = batchService;
+        this.stockService = stockService;
+        this.analyticsService = analyticsService;
+        this.orderSnapshotService = orderSnapshotService;
     }
 
     @PostMapping("/customers")
-    public ResponseEntity<List<Customer>> queryCustomers(@Valid @RequestBody CustomDynamicCustomerQueryRequest request) {
+    public ResponseEntity<CustomDynamicPageResponse<Customer>> queryCustomers(@Valid @RequestBody CustomDynamicCustomerQueryRequest request) {
         return ResponseEntity.ok(commerceService.queryCustomers(request));
     }
 
     @PostMapping("/categories")
-    public ResponseEntity<List<Category>> queryCategories(@Valid @RequestBody CustomDynamicCategoryQueryRequest request) {
+    public ResponseEntity<CustomDynamicPageResponse<Category>> queryCategories(@Valid @RequestBody CustomDynamicCategoryQueryRequest request) {
         return ResponseEntity.ok(commerceService.queryCategories(request));
     }
 
     @PostMapping("/products")
-    public ResponseEntity<List<Product>> queryProducts(@Valid @RequestBody CustomDynamicProductQueryRequest request) {
+    public ResponseEntity<CustomDynamicPageResponse<Product>> queryProducts(@Valid @RequestBody CustomDynamicProductQueryRequest request) {
         return ResponseEntity.ok(commerceService.queryProducts(request));
     }
 
     @PostMapping("/inventory-movements")
-    public ResponseEntity<List<InventoryMovement>> queryInventoryMovements(@Valid @RequestBody CustomDynamicInventoryMovementQueryRequest request) {
+    public ResponseEntity<CustomDynamicPageResponse<InventoryMovement>> queryInventoryMovements(@Valid @RequestBody CustomDynamicInventoryMovementQueryRequest request) {
         return ResponseEntity.ok(commerceService.queryInventoryMovements(request));
     }
 
     @PostMapping("/orders")
-    public ResponseEntity<List<OrderEntity>> queryOrders(@Valid @RequestBody CustomDynamicOrderQueryRequest request) {
+    public ResponseEntity<CustomDynamicPageResponse<OrderEntity>> queryOrders(@Valid @RequestBody CustomDynamicOrderQueryRequest request) {
         return ResponseEntity.ok(commerceService.queryOrders(request));
     }
 
+    @PostMapping("/orders/graph")
+    public ResponseEntity<CustomDynamicPageResponse<CustomDynamicOrderGraph>> queryOrderGraphs(@Valid @RequestBody CustomDynamicOrderQueryRequest request) {
+        return ResponseEntity.ok(commerceService.queryOrderGraphs(request));
+    }
+
     @PostMapping("/order-items")
-    public ResponseEntity<List<OrderItem>> queryOrderItems(@Valid @RequestBody CustomDynamicOrderItemQueryRequest request) {
+    public ResponseEntity<CustomDynamicPageResponse<OrderItem>> queryOrderItems(@Valid @RequestBody CustomDynamicOrderItemQueryRequest request) {
         return ResponseEntity.ok(commerceService.queryOrderItems(request));
     }
 
     @PostMapping("/payments")
-    public ResponseEntity<List<Payment>> queryPayments(@Valid @RequestBody CustomDynamicPaymentQueryRequest request) {
+    public ResponseEntity<CustomDynamicPageResponse<Payment>> queryPayments(@Valid @RequestBody CustomDynamicPaymentQueryRequest request) {
         return ResponseEntity.ok(commerceService.queryPayments(request));
     }
 
     @PostMapping("/returns")
-    public ResponseEntity<List<ReturnEntry>> queryReturns(@Valid @RequestBody CustomDynamicReturnQueryRequest request) {
+    public ResponseEntity<CustomDynamicPageResponse<ReturnEntry>> queryReturns(@Valid @RequestBody CustomDynamicReturnQueryRequest request) {
         return ResponseEntity.ok(commerceService.queryReturns(request));
     }
+
+    @PostMapping("/inventory/stock")
+    public ResponseEntity<CustomDynamicStockResponse> queryStock(@Valid @RequestBody CustomDynamicStockQueryRequest request) {
+        return ResponseEntity.ok(stockService.queryStock(request));
+    }
+
+    @PostMapping("/analytics/sales")
+    public ResponseEntity<CustomDynamicSalesResponse> querySales(@Valid @RequestBody CustomDynamicSalesQueryRequest request) {
+        return ResponseEntity.ok(analyticsService.querySales(request));
+    }
+
+    @PostMapping("/analytics/orders/snapshot")
+    public ResponseEntity<CustomDynamicOrderSnapshotResponse> queryOrderSnapshot(@Valid @RequestBody CustomDynamicOrderSnapshotQueryRequest request) {
+        return ResponseEntity.ok(orderSnapshotService.query(request));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<CustomDynamicBatchResponse> batch(@Valid @RequestBody CustomDynamicBatchRequest request) {
+        return ResponseEntity.ok(batchService.execute(request));
+    }
+
+    @PostMapping("/customers/export")
+    public ResponseEntity<StreamingResponseBody> exportCustomers(@Valid @RequestBody CustomDynamicCustomerQueryRequest request,
+                                                       @RequestParam(defaultValue = "ndjson") String format) {
+        CustomDynamicExportFormat exportFormat = CustomDynamicExportFormat.fromValue(format);
+        return exportResponse("customers", exportFormat, exportService.exportCustomers(request, exportFormat));
+    }
+
+    @PostMapping("/categories/export")
+    public ResponseEntity<StreamingResponseBody> exportCategories(@Valid @RequestBody CustomDynamicCategoryQueryRequest request,
+                                                       @RequestParam(defaultValue = "ndjson") String format) {
+        CustomDynamicExportFormat exportFormat = CustomDynamicExportFormat.fromValue(format);
+        return exportResponse("categories", exportFormat, exportService.exportCategories(request, exportFormat));
+    }
+
+    @PostMapping("/products/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@Valid @RequestBody CustomDynamicProductQueryRequest request,
+                                                       @RequestParam(defaultValue = "ndjson") String format) {
+        CustomDynamicExportFormat exportFormat = CustomDynamicExportFormat.fromValue(format);
+        return exportResponse("products", exportFormat, exportService.exportProducts(request, exportFormat));
+    }
+
+    @PostMapping("/inventory-movements/export")
+    public ResponseEntity<StreamingResponseBody> exportInventoryMovements(@Valid @RequestBody CustomDynamicInventoryMovementQueryRequest request,
+                                                       @RequestParam(defaultValue = "ndjson") String format) {
+        CustomDynamicExportFormat exportFormat = CustomDynamicExportFormat.fromValue(format);
+        return exportResponse("inventory-movements", exportFormat, exportService.exportInventoryMovements(request, exportFormat));
+    }
+
+    @PostMapping("/orders/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(@Valid @RequestBody CustomDynamicOrderQueryRequest request,
+                                                       @RequestParam(defaultValue = "ndjson") String format) {
+        CustomDynamicExportFormat exportFormat = CustomDynamicExportFormat.fromValue(format);
+        return exportResponse("orders", exportFormat, exportService.exportOrders(request, exportFormat));
+    }
+
+    @PostMapping("/order-items/export")
+    public ResponseEntity<StreamingResponseBody> exportOrderItems(@Valid @RequestBody CustomDynamicOrderItemQueryRequest request,
+                                                       @RequestParam(defaultValue = "ndjson") String format) {
+        CustomDynamicExportFormat exportFormat = CustomDynamicExportFormat.fromValue(format);
+        return exportResponse("order-items", exportFormat, exportService.exportOrderItems(request, exportFormat));
+    }
+
+    @PostMapping("/payments/export")
+    public ResponseEntity<StreamingResponseBody> exportPayments(@Valid @RequestBody CustomDynamicPaymentQueryRequest request,
+                                                       @RequestParam(defaultValue = "ndjson") String format) {
+        CustomDynamicExportFormat exportFormat = CustomDynamicExportFormat.fromValue(format);
+        return exportResponse("payments", exportFormat, exportService.exportPayments(request, exportFormat));
+    }
+
+    @PostMapping("/returns/export")
+    public ResponseEntity<StreamingResponseBody> exportReturns(@Valid @RequestBody CustomDynamicReturnQueryRequest request,
+                                                       @RequestParam(defaultValue = "ndjson") String format) {
+        CustomDynamicExportFormat exportFormat = CustomDynamicExportFormat.fromValue(format);
+        return exportResponse("returns", exportFormat, exportService.exportReturns(request, exportFormat));
+    }
+
+    private ResponseEntity<StreamingResponseBody> exportResponse(String name, CustomDynamicExportFormat format, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "." + format.getExtension() + "\"")
+                .body(body);
+    }
 }
@@ -1,5 +1,10 @@
 package com.demo.todolist.customdynamic.config;
 
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+// The key is only ever set for the extent of a call and restored afterwards, so a pooled platform thread or a
+// virtual thread never carries a stale key into its next task. Child tasks receive it explicitly via wrap/bind.
 public final class CustomDynamicDataSourceContext {
     public static final String DEFAULT_KEY = "default";
     private static final ThreadLocal<String> CURRENT_KEY = new ThreadLocal<>();
@@ -7,15 +12,56 @@ public final class CustomDynamicDataSourceContext {
     private CustomDynamicDataSourceContext() {
     }
 
-    public static void setCurrentKey(String key) {
+    public static String getCurrentKey() {
+        return CURRENT_KEY.get();
+    }
+
+    public static <T> T callWith(String key, Supplier<T> action) {
+        String previous = CURRENT_KEY.get();
         CURRENT_KEY.set(key);
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
     }
 
-    public static String getCurrentKey() {
-        return CURRENT_KEY.get();
+    public static void runWith(String key, Runnable action) {
+        String previous = CURRENT_KEY.get();
+        CURRENT_KEY.set(key);
+        try {
+            action.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public static <T> Callable<T> bind(String key, Callable<T> task) {
+        return () -> {
+            String previous = CURRENT_KEY.get();
+            CURRENT_KEY.set(key);
+            try {
+                return task.call();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    // Captures the caller's key for a task that will run on another thread.
+    public static Runnable wrap(Runnable task) {
+        String key = CURRENT_KEY.get();
+        if (key == null) {
+            return task;
+        }
+        return () -> runWith(key, task);
     }
 
-    public static void clear() {
-        CURRENT_KEY.remove();
+    private static void restore(String previous) {
+        if (previous == null) {
+            CURRENT_KEY.remove();
+        } else {
+            CURRENT_KEY.set(previous);
+        }
     }
 }
@@ -32,6 +32,21 @@ public class CustomDynamicDataSourceProperties {
         private int port;
         private String database;
         private Boolean useServiceName;
+        // Optional overrides, e.g. to point a configured database at an embedded stand-in for benchmarks.
+        private String url;
+        private String driverClassName;
+        // Hikari settings; null keeps Hikari's default. Timeouts are in milliseconds.
+        private Integer maximumPoolSize;
+        private Integer minimumIdle;
+        private Long connectionTimeout;
+        private Long idleTimeout;
+        private Long maxLifetime;
+        // Open minimumIdle connections before connect returns instead of letting Hikari fill the pool lazily.
+        private boolean prewarm = false;
+        private Boolean readOnly;
+        private Boolean autoCommit;
+        // Merged over the dialect's defaults, e.g. prepareThreshold or cachePrepStmts.
+        private Map<String, String> driverProperties = new HashMap<>();
 
         public com.demo.todolist.customdynamic.dto.DbType getDbType() {
             return dbType;
@@ -72,5 +87,93 @@ public class CustomDynamicDataSourceProperties {
         public void setUseServiceName(Boolean useServiceName) {
             this.useServiceName = useServiceName;
         }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getDriverClassName() {
+            return driverClassName;
+        }
+
+        public void setDriverClassName(String driverClassName) {
+            this.driverClassName = driverClassName;
+        }
+
+        public Integer getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(Integer maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+
+        public Integer getMinimumIdle() {
+            return minimumIdle;
+        }
+
+        public void setMinimumIdle(Integer minimumIdle) {
+            this.minimumIdle = minimumIdle;
+        }
+
+        public Long getConnectionTimeout() {
+            return connectionTimeout;
+        }
+
+        public void setConnectionTimeout(Long connectionTimeout) {
+            this.connectionTimeout = connectionTimeout;
+        }
+
+        public Long getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Long idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        public Long getMaxLifetime() {
+            return maxLifetime;
+        }
+
+        public void setMaxLifetime(Long maxLifetime) {
+            this.maxLifetime = maxLifetime;
+        }
+
+        public boolean isPrewarm() {
+            return prewarm;
+        }
+
+        public void setPrewarm(boolean prewarm) {
+            this.prewarm = prewarm;
+        }
+
+        public Boolean getReadOnly() {
+            return readOnly;
+        }
+
+        public void setReadOnly(Boolean readOnly) {
+            this.readOnly = readOnly;
+        }
+
+        public Boolean getAutoCommit() {
+            return autoCommit;
+        }
+
+        public void setAutoCommit(Boolean autoCommit) {
+            this.autoCommit = autoCommit;
+        }
+
+        public Map<String, String> getDriverProperties() {
+            return driverProperties;
+        }
+
+        public void setDriverProperties(Map<String, String> driverProperties) {
+            this.driverProperties = driverProperties;
+        }
     }
 }
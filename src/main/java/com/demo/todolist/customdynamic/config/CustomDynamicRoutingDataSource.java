@@ -2,10 +2,36 @@ package com.demo.todolist.customdynamic.config;
 
 import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
 
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class CustomDynamicRoutingDataSource extends AbstractRoutingDataSource {
+
+    // Runtime connections are resolved from this map so registering or removing one never rebuilds
+    // the resolved targets configured at startup.
+    private final Map<String, DataSource> dynamicTargets = new ConcurrentHashMap<>();
+
+    public void addTargetDataSource(String key, DataSource dataSource) {
+        dynamicTargets.put(key, dataSource);
+    }
+
+    public void removeTargetDataSource(String key) {
+        dynamicTargets.remove(key);
+    }
+
     @Override
     protected Object determineCurrentLookupKey() {
         String key = CustomDynamicDataSourceContext.getCurrentKey();
         return key == null ? CustomDynamicDataSourceContext.DEFAULT_KEY : key;
     }
+
+    @Override
+    protected DataSource determineTargetDataSource() {
+        DataSource dataSource = dynamicTargets.get(determineCurrentLookupKey());
+        if (dataSource != null) {
+            return dataSource;
+        }
+        return super.determineTargetDataSource();
+    }
 }
@@ -0,0 +1,200 @@
+package com.demo.todolist.customdynamic.dialect;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.dialects.IDialect;
+import com.baomidou.mybatisplus.extension.plugins.pagination.dialects.MySqlDialect;
+import com.baomidou.mybatisplus.extension.plugins.pagination.dialects.Oracle12cDialect;
+import com.baomidou.mybatisplus.extension.plugins.pagination.dialects.PostgreDialect;
+import com.demo.todolist.customdynamic.dto.DbType;
+import com.demo.todolist.dto.CustomDynamicSalesBucket;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Everything that differs between the supported databases, resolved once per connection from its configured DbType.
+public enum CustomDynamicSqlDialect {
+    // server-side prepare from the second execution and a larger per-connection cache of prepared statements
+    POSTGRES(new PostgreDialect(), 1000, new String[]{
+            "customer_id", "email", "full_name", "phone", "country", "city", "signup_at", "is_vip"},
+            Map.of("prepareThreshold", "2", "preparedStatementCacheQueries", "512")) {
+        @Override
+        public String bucketStart(CustomDynamicSalesBucket bucket, String column) {
+            return "CAST(date_trunc('" + bucket.toValue() + "', " + column + ") AS DATE)";
+        }
+    },
+    ORACLE(new Oracle12cDialect(), 1000, new String[]{
+            "customer_id",
+            "email",
+            "UTL_I18N.RAW_TO_NCHAR(UTL_RAW.CAST_TO_RAW(full_name), 'xxxx') AS full_name",
+            "phone",
+            "country",
+            "city",
+            "signup_at",
+            "is_vip"},
+            Map.of("oracle.jdbc.implicitStatementCacheSize", "100")) {
+        @Override
+        public String bucketStart(CustomDynamicSalesBucket bucket, String column) {
+            return switch (bucket) {
+                case DAY -> "TRUNC(" + column + ", 'DD')";
+                case WEEK -> "TRUNC(" + column + ", 'IW')";
+                case MONTH -> "TRUNC(" + column + ", 'MM')";
+            };
+        }
+    },
+    // Connector/J streams row by row only with Integer.MIN_VALUE
+    MYSQL(new MySqlDialect(), Integer.MIN_VALUE, new String[]{
+            "customer_id", "email", "full_name", "phone", "country", "city", "signup_at", "is_vip"},
+            Map.of("useServerPrepStmts", "true", "cachePrepStmts", "true", "prepStmtCacheSize", "250",
+                    "prepStmtCacheSqlLimit", "2048", "rewriteBatchedStatements", "true")) {
+        @Override
+        public String bucketStart(CustomDynamicSalesBucket bucket, String column) {
+            return switch (bucket) {
+                case DAY -> "DATE(" + column + ")";
+                case WEEK -> "DATE_SUB(DATE(" + column + "), INTERVAL WEEKDAY(" + column + ") DAY)";
+                case MONTH -> "CAST(DATE_FORMAT(" + column + ", '%Y-%m-01') AS DATE)";
+            };
+        }
+    },
+    MSSQL(new CustomDynamicSqlServerTopDialect(), 1000, new String[]{
+            "customer_id", "email", "full_name", "phone", "country", "city", "signup_at", "is_vip"},
+            Map.of("statementPoolingCacheSize", "100", "disableStatementPooling", "false")) {
+        @Override
+        public String bucketStart(CustomDynamicSalesBucket bucket, String column) {
+            return switch (bucket) {
+                case DAY -> "CAST(" + column + " AS DATE)";
+                // DATEDIFF counts from 1900-01-01, which was a Monday, regardless of DATEFIRST
+                case WEEK -> "CAST(DATEADD(week, DATEDIFF(day, '19000101', " + column + ") / 7, '19000101') AS DATE)";
+                case MONTH -> "DATEFROMPARTS(YEAR(" + column + "), MONTH(" + column + "), 1)";
+            };
+        }
+    };
+
+    private final IDialect paginationDialect;
+    private final int streamingFetchSize;
+    private final String[] customerColumns;
+    private final Map<String, String> driverProperties;
+
+    CustomDynamicSqlDialect(IDialect paginationDialect, int streamingFetchSize, String[] customerColumns,
+                            Map<String, String> driverProperties) {
+        this.paginationDialect = paginationDialect;
+        this.streamingFetchSize = streamingFetchSize;
+        this.customerColumns = customerColumns;
+        this.driverProperties = driverProperties;
+    }
+
+    public static CustomDynamicSqlDialect of(DbType dbType) {
+        return switch (dbType) {
+            case POSTGRES -> POSTGRES;
+            case ORACLE -> ORACLE;
+            case MYSQL -> MYSQL;
+            case MSSQL -> MSSQL;
+        };
+    }
+
+    // LIMIT for PostgreSQL and MySQL, FETCH FIRST for Oracle 12c+, TOP for first pages on SQL Server.
+    public IDialect getPaginationDialect() {
+        return paginationDialect;
+    }
+
+    public int getStreamingFetchSize() {
+        return streamingFetchSize;
+    }
+
+    public String[] getCustomerColumns() {
+        return customerColumns.clone();
+    }
+
+    // Driver-level statement caching, so hot queries skip parse and plan on a warm connection.
+    public Map<String, String> getDriverProperties() {
+        return driverProperties;
+    }
+
+    // Start of the time bucket as a DATE; weeks start on Monday in every dialect.
+    public abstract String bucketStart(CustomDynamicSalesBucket bucket, String column);
+
+    // Estimated plan only: none of these forms execute the statement.
+    public String explain(Connection connection, String sql, List<Object> parameters) throws SQLException {
+        return switch (this) {
+            case POSTGRES -> explainRows(connection, "EXPLAIN " + sql, parameters);
+            case MYSQL -> explainRows(connection, "EXPLAIN FORMAT=TREE " + sql, parameters);
+            case ORACLE -> explainOracle(connection, sql);
+            case MSSQL -> explainSqlServer(connection, sql, parameters);
+        };
+    }
+
+    private static String explainRows(Connection connection, String explainSql, List<Object> parameters) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(explainSql)) {
+            bind(statement, parameters);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return readPlan(resultSet);
+            }
+        }
+    }
+
+    // EXPLAIN PLAN does not accept JDBC binds, but it plans unbound :n placeholders without values.
+    private static String explainOracle(Connection connection, String sql) throws SQLException {
+        String statementId = UUID.randomUUID().toString().substring(0, 30);
+        StringBuilder placeholders = new StringBuilder();
+        int index = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                placeholders.append(":").append(++index);
+            } else {
+                placeholders.append(c);
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("EXPLAIN PLAN SET STATEMENT_ID = '" + statementId + "' FOR " + placeholders);
+            try (ResultSet resultSet = statement.executeQuery(
+                    "SELECT plan_table_output FROM TABLE(DBMS_XPLAN.DISPLAY(NULL, '" + statementId + "', 'TYPICAL'))")) {
+                return readPlan(resultSet);
+            } finally {
+                statement.execute("DELETE FROM plan_table WHERE statement_id = '" + statementId + "'");
+            }
+        }
+    }
+
+    // With SHOWPLAN_TEXT on, SQL Server returns the plan instead of running the statement.
+    private static String explainSqlServer(Connection connection, String sql, List<Object> parameters) throws SQLException {
+        try (Statement settings = connection.createStatement()) {
+            settings.execute("SET SHOWPLAN_TEXT ON");
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                bind(statement, parameters);
+                List<String> lines = new ArrayList<>();
+                boolean hasResults = statement.execute();
+                while (hasResults || statement.getUpdateCount() != -1) {
+                    if (hasResults) {
+                        try (ResultSet resultSet = statement.getResultSet()) {
+                            lines.add(readPlan(resultSet));
+                        }
+                    }
+                    hasResults = statement.getMoreResults();
+                }
+                return String.join("\n", lines);
+            } finally {
+                // the connection goes back to a shared pool
+                settings.execute("SET SHOWPLAN_TEXT OFF");
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement statement, List<Object> parameters) throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            statement.setObject(i + 1, parameters.get(i));
+        }
+    }
+
+    private static String readPlan(ResultSet resultSet) throws SQLException {
+        List<String> lines = new ArrayList<>();
+        while (resultSet.next()) {
+            lines.add(resultSet.getString(1));
+        }
+        return String.join("\n", lines);
+    }
+}
@@ -0,0 +1,25 @@
+package com.demo.todolist.customdynamic.dialect;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.DialectModel;
+import com.baomidou.mybatisplus.extension.plugins.pagination.dialects.SQLServerDialect;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Keyset pages always start at offset 0, where SELECT TOP (n) needs no ORDER BY and gives the optimizer a row goal.
+// Anything else falls back to OFFSET ... FETCH NEXT.
+public class CustomDynamicSqlServerTopDialect extends SQLServerDialect {
+
+    private static final Pattern SELECT_HEAD = Pattern.compile("^\\s*SELECT\\s+(DISTINCT\\s+)?", Pattern.CASE_INSENSITIVE);
+
+    @Override
+    public DialectModel buildPaginationSql(String originalSql, long offset, long limit) {
+        Matcher head = SELECT_HEAD.matcher(originalSql);
+        if (offset != 0 || !head.find()) {
+            return super.buildPaginationSql(originalSql, offset, limit);
+        }
+        String sql = originalSql.substring(0, head.end()) + "TOP (" + FIRST_MARK + ") " + originalSql.substring(head.end());
+        // TOP (?) is the first placeholder of the statement, so its mapping goes ahead of every filter bind
+        return new DialectModel(sql, limit).setConsumer(true, mappings -> 0);
+    }
+}
@@ -0,0 +1,4 @@
+package com.demo.todolist.customdynamic.event;
+
+public record CustomDynamicConnectionClosedEvent(String connectionId, String databaseName) {
+}
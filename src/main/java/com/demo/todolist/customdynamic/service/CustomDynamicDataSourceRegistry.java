@@ -1,78 +1,104 @@
 package com.demo.todolist.customdynamic.service;
 
-import com.demo.todolist.customdynamic.config.CustomDynamicDataSourceContext;
 import com.demo.todolist.customdynamic.config.CustomDynamicDataSourceProperties;
 import com.demo.todolist.customdynamic.config.CustomDynamicRoutingDataSource;
+import com.demo.todolist.customdynamic.dialect.CustomDynamicSqlDialect;
 import com.demo.todolist.customdynamic.dto.DbType;
 import com.demo.todolist.customdynamic.dto.CustomDynamicConnectRequest;
 import com.demo.todolist.customdynamic.dto.CustomDynamicConnectResponse;
 import com.demo.todolist.customdynamic.dto.CustomDynamicConnectionInfo;
+import com.demo.todolist.customdynamic.event.CustomDynamicConnectionClosedEvent;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
-import org.springframework.beans.factory.annotation.Qualifier;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
-import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Connection;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+@Slf4j
 @Service
 public class CustomDynamicDataSourceRegistry {
 
+    // Resolution of idle tracking and expiry: connections close at most about one tick past their TTL.
+    private static final Duration EXPIRY_TICK = Duration.ofSeconds(1);
+
     private final CustomDynamicRoutingDataSource routingDataSource;
-    private final DataSource defaultDataSource;
     private final Duration ttl;
+    private final long ttlTicks;
+    private final CustomDynamicExpiryWheel expiryWheel;
     private final CustomDynamicDataSourceProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
     private final Map<String, DataSourceHolder> dataSources = new ConcurrentHashMap<>();
+    private final Map<PoolKey, SharedPool> pools = new ConcurrentHashMap<>();
+    // Open pools per database by index. A new pool takes the lowest free index for its name, so the hikaricp.* series
+    // of a database stay bounded by its concurrently open pools instead of growing with every pool ever created.
+    private final Map<String, BitSet> poolSlots = new HashMap<>();
+    private final Map<String, Counter> expiredCounters = new ConcurrentHashMap<>();
 
     public CustomDynamicDataSourceRegistry(CustomDynamicRoutingDataSource routingDataSource,
-                                     @Qualifier("defaultDataSource") DataSource defaultDataSource,
-                                     CustomDynamicDataSourceProperties properties) {
+                                     CustomDynamicDataSourceProperties properties,
+                                     ApplicationEventPublisher eventPublisher,
+                                     MeterRegistry meterRegistry) {
         this.routingDataSource = routingDataSource;
-        this.defaultDataSource = defaultDataSource;
         this.ttl = Duration.ofMinutes(properties.getTtlMinutes());
+        this.ttlTicks = Math.max(1, ttl.dividedBy(EXPIRY_TICK));
+        this.expiryWheel = new CustomDynamicExpiryWheel(EXPIRY_TICK, ttlTicks);
         this.properties = properties;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("dynamic.connections.active", dataSources, Map::size)
+                .description("Registered dynamic connection ids")
+                .register(meterRegistry);
+        Gauge.builder("dynamic.pools.active", pools, Map::size)
+                .description("Open Hikari pools shared by the dynamic connections")
+                .register(meterRegistry);
     }
 
     public CustomDynamicConnectResponse connect(CustomDynamicConnectRequest request) {
         String connectionId = UUID.randomUUID().toString();
-        HikariDataSource dataSource;
-        try {
-            dataSource = buildDataSource(connectionId, request);
-        } catch (Exception ex) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid datasource config: " + ex.getMessage(), ex);
-        }
-
-        try (Connection ignored = dataSource.getConnection()) {
-            // validate connection
-        } catch (Exception ex) {
-            dataSource.close();
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "database connection failed: " + ex.getMessage(), ex);
-        }
+        DbType dbType = getDatabaseConfig(request).getDbType();
+        SharedPool pool = acquirePool(request);
 
         Instant now = Instant.now();
-        dataSources.put(connectionId, new DataSourceHolder(dataSource, request.getDatabaseName(), now, now));
-        refreshRoutingDataSources();
+        long tick = expiryWheel.currentTick();
+        routingDataSource.addTargetDataSource(connectionId, pool.getDataSource());
+        dataSources.put(connectionId, new DataSourceHolder(pool, request.getDatabaseName(), dbType,
+                CustomDynamicSqlDialect.of(dbType), now, tick));
+        expiryWheel.schedule(connectionId, tick + ttlTicks);
 
         return new CustomDynamicConnectResponse(connectionId, now.plus(ttl));
     }
 
+    // Also the existence check for request paths: one lookup, and at most one write per connection per tick.
     public void touch(String connectionId) {
         DataSourceHolder holder = dataSources.get(connectionId);
         if (holder == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "connectionId not found");
         }
-        holder.setLastAccess(Instant.now());
+        holder.touch(expiryWheel.currentTick());
     }
 
     public void ensureExists(String connectionId) {
@@ -81,6 +107,41 @@ public class CustomDynamicDataSourceRegistry {
         }
     }
 
+    public DbType getDbType(String connectionId) {
+        DataSourceHolder holder = dataSources.get(connectionId);
+        if (holder == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "connectionId not found");
+        }
+        return holder.getDbType();
+    }
+
+    public CustomDynamicSqlDialect getDialect(String connectionId) {
+        DataSourceHolder holder = dataSources.get(connectionId);
+        if (holder == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "connectionId not found");
+        }
+        return holder.getDialect();
+    }
+
+    // Null for unknown keys, for callers below the web layer such as the pagination interceptor.
+    public CustomDynamicSqlDialect findDialect(String connectionId) {
+        DataSourceHolder holder = connectionId == null ? null : dataSources.get(connectionId);
+        return holder == null ? null : holder.getDialect();
+    }
+
+    public String findDatabaseName(String connectionId) {
+        DataSourceHolder holder = connectionId == null ? null : dataSources.get(connectionId);
+        return holder == null ? null : holder.getDatabaseName();
+    }
+
+    public String getDatabaseName(String connectionId) {
+        DataSourceHolder holder = dataSources.get(connectionId);
+        if (holder == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "connectionId not found");
+        }
+        return holder.getDatabaseName();
+    }
+
     public List<CustomDynamicConnectionInfo> getConnectionInfos() {
         List<CustomDynamicConnectionInfo> infos = new ArrayList<>();
         for (Map.Entry<String, DataSourceHolder> entry : dataSources.entrySet()) {
@@ -94,59 +155,198 @@ public class CustomDynamicDataSourceRegistry {
     }
 
     public int removeAll() {
-        List<DataSourceHolder> holders = new ArrayList<>(dataSources.values());
-        dataSources.clear();
-        for (DataSourceHolder holder : holders) {
-            holder.close();
+        List<String> connectionIds = new ArrayList<>(dataSources.keySet());
+        int removed = 0;
+        for (String connectionId : connectionIds) {
+            if (removeHolder(connectionId)) {
+                removed++;
+            }
         }
-        refreshRoutingDataSources();
-        return holders.size();
+        return removed;
     }
 
-    @Scheduled(fixedDelay = 60000)
+    @Scheduled(fixedDelay = 1000)
     public void cleanupExpired() {
-        Instant now = Instant.now();
-        List<String> expired = new ArrayList<>();
-        for (Map.Entry<String, DataSourceHolder> entry : dataSources.entrySet()) {
-            if (Duration.between(entry.getValue().getLastAccess(), now).compareTo(ttl) > 0) {
-                expired.add(entry.getKey());
-            }
-        }
+        List<String> expired = expiryWheel.advance(connectionId -> {
+            DataSourceHolder holder = dataSources.get(connectionId);
+            return holder == null ? -1 : holder.getLastAccessTick() + ttlTicks;
+        });
         for (String key : expired) {
-            remove(key);
+            DataSourceHolder holder = dataSources.get(key);
+            if (holder != null && removeHolder(key)) {
+                expiredCounters.computeIfAbsent(holder.getDatabaseName(), databaseName -> Counter.builder("dynamic.connections.expired")
+                        .description("Connections closed by the idle TTL")
+                        .tag("database", databaseName)
+                        .register(meterRegistry)).increment();
+            }
         }
     }
 
     public void remove(String connectionId) {
+        removeHolder(connectionId);
+    }
+
+    private boolean removeHolder(String connectionId) {
         DataSourceHolder holder = dataSources.remove(connectionId);
-        if (holder != null) {
-            holder.close();
-            refreshRoutingDataSources();
+        if (holder == null) {
+            return false;
         }
+        routingDataSource.removeTargetDataSource(connectionId);
+        releasePool(holder.getPool());
+        eventPublisher.publishEvent(new CustomDynamicConnectionClosedEvent(connectionId, holder.getDatabaseName()));
+        return true;
     }
 
-    private void refreshRoutingDataSources() {
-        Map<Object, Object> targets = new HashMap<>();
-        targets.put(CustomDynamicDataSourceContext.DEFAULT_KEY, defaultDataSource);
-        for (Map.Entry<String, DataSourceHolder> entry : dataSources.entrySet()) {
-            targets.put(entry.getKey(), entry.getValue().getDataSource());
+    private SharedPool acquirePool(CustomDynamicConnectRequest request) {
+        PoolKey key = new PoolKey(request.getDatabaseName(), request.getUsername(), credentialHash(request));
+        SharedPool existing = pools.computeIfPresent(key, (ignored, pool) -> pool.retain());
+        if (existing != null) {
+            return existing;
         }
-        routingDataSource.setTargetDataSources(targets);
-        routingDataSource.afterPropertiesSet();
+
+        int slot = claimPoolSlot(key.databaseName());
+        HikariDataSource dataSource;
+        try {
+            dataSource = buildDataSource(request, slot);
+        } catch (ResponseStatusException ex) {
+            freePoolSlot(key.databaseName(), slot);
+            throw ex;
+        } catch (Exception ex) {
+            freePoolSlot(key.databaseName(), slot);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid datasource config: " + ex.getMessage(), ex);
+        }
+        SharedPool created = new SharedPool(key, slot, dataSource);
+
+        try (Connection ignored = dataSource.getConnection()) {
+            // validate connection
+        } catch (Exception ex) {
+            closePool(created);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "database connection failed: " + ex.getMessage(), ex);
+        }
+        if (getDatabaseConfig(request).isPrewarm()) {
+            prewarm(dataSource);
+        }
+
+        SharedPool winner = pools.compute(key, (ignored, pool) -> pool == null ? created : pool.retain());
+        if (winner != created) {
+            // another connect for the same credentials won the race, keep its pool
+            closePool(created);
+        }
+        return winner;
     }
 
-    private HikariDataSource buildDataSource(String connectionId, CustomDynamicConnectRequest request) {
+    // Holding minimumIdle connections at once makes Hikari open them now rather than in the background.
+    private void prewarm(HikariDataSource dataSource) {
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < dataSource.getMinimumIdle(); i++) {
+                connections.add(dataSource.getConnection());
+            }
+        } catch (Exception ex) {
+            // the pool already validated one connection; the rest is filled lazily as usual
+            log.warn("prewarm of pool {} stopped after {} of {} connections", dataSource.getPoolName(),
+                    connections.size(), dataSource.getMinimumIdle(), ex);
+        } finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (Exception ignored) {
+                    // returned to the pool or evicted by Hikari
+                }
+            }
+        }
+    }
+
+    private void releasePool(SharedPool pool) {
+        pools.computeIfPresent(pool.getKey(), (ignored, current) ->
+                current == pool && pool.release() == 0 ? null : current);
+        if (pool.getReferenceCount() == 0) {
+            closePool(pool);
+        }
+    }
+
+    // The index is only freed once the pool, and with it its hikaricp.* meters, is closed.
+    private void closePool(SharedPool pool) {
+        pool.close();
+        freePoolSlot(pool.getKey().databaseName(), pool.getSlot());
+    }
+
+    private int claimPoolSlot(String databaseName) {
+        synchronized (poolSlots) {
+            BitSet slots = poolSlots.computeIfAbsent(databaseName, ignored -> new BitSet());
+            int slot = slots.nextClearBit(0);
+            slots.set(slot);
+            return slot;
+        }
+    }
+
+    private void freePoolSlot(String databaseName, int slot) {
+        synchronized (poolSlots) {
+            BitSet slots = poolSlots.get(databaseName);
+            slots.clear(slot);
+            if (slots.isEmpty()) {
+                poolSlots.remove(databaseName);
+            }
+        }
+    }
+
+    private String credentialHash(CustomDynamicConnectRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(request.getUsername().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(request.getPassword().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    private HikariDataSource buildDataSource(CustomDynamicConnectRequest request, int slot) {
         CustomDynamicDataSourceProperties.DatabaseConfig databaseConfig = getDatabaseConfig(request);
         HikariConfig config = new HikariConfig();
         config.setJdbcUrl(buildJdbcUrl(databaseConfig));
         config.setUsername(request.getUsername());
         config.setPassword(request.getPassword());
-        config.setDriverClassName(driverClassName(databaseConfig.getDbType()));
-        config.setPoolName("dynamic-" + connectionId);
+        config.setDriverClassName(databaseConfig.getDriverClassName() != null
+                ? databaseConfig.getDriverClassName()
+                : driverClassName(databaseConfig.getDbType()));
+        if (databaseConfig.getMaximumPoolSize() != null) {
+            config.setMaximumPoolSize(databaseConfig.getMaximumPoolSize());
+        }
+        if (databaseConfig.getMinimumIdle() != null) {
+            config.setMinimumIdle(databaseConfig.getMinimumIdle());
+        }
+        if (databaseConfig.getConnectionTimeout() != null) {
+            config.setConnectionTimeout(databaseConfig.getConnectionTimeout());
+        }
+        if (databaseConfig.getIdleTimeout() != null) {
+            config.setIdleTimeout(databaseConfig.getIdleTimeout());
+        }
+        if (databaseConfig.getMaxLifetime() != null) {
+            config.setMaxLifetime(databaseConfig.getMaxLifetime());
+        }
+        if (databaseConfig.getReadOnly() != null) {
+            config.setReadOnly(databaseConfig.getReadOnly());
+        }
+        if (databaseConfig.getAutoCommit() != null) {
+            config.setAutoCommit(databaseConfig.getAutoCommit());
+        }
+        // The dialect defaults are specific to its own driver, so an overridden driver only gets explicit properties.
+        if (databaseConfig.getDriverClassName() == null) {
+            CustomDynamicSqlDialect.of(databaseConfig.getDbType()).getDriverProperties().forEach(config::addDataSourceProperty);
+        }
+        databaseConfig.getDriverProperties().forEach(config::addDataSourceProperty);
+        config.setPoolName("dynamic-" + request.getDatabaseName() + "-" + slot);
+        // hikaricp.* meters are tagged by pool name and removed again when the pool is closed
+        config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
         return new HikariDataSource(config);
     }
 
     private String buildJdbcUrl(CustomDynamicDataSourceProperties.DatabaseConfig databaseConfig) {
+        if (databaseConfig.getUrl() != null) {
+            return databaseConfig.getUrl();
+        }
         return switch (databaseConfig.getDbType()) {
             case POSTGRES -> "jdbc:postgresql://" + databaseConfig.getHost() + ":" + databaseConfig.getPort()
                     + "/" + databaseConfig.getDatabase();
@@ -185,42 +385,98 @@ public class CustomDynamicDataSourceRegistry {
         return config;
     }
 
+    private record PoolKey(String databaseName, String username, String credentialHash) {
+    }
+
+    private static class SharedPool {
+        private final PoolKey key;
+        private final int slot;
+        private final HikariDataSource dataSource;
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        SharedPool(PoolKey key, int slot, HikariDataSource dataSource) {
+            this.key = key;
+            this.slot = slot;
+            this.dataSource = dataSource;
+        }
+
+        public PoolKey getKey() {
+            return key;
+        }
+
+        public int getSlot() {
+            return slot;
+        }
+
+        public HikariDataSource getDataSource() {
+            return dataSource;
+        }
+
+        public int getReferenceCount() {
+            return references.get();
+        }
+
+        // retain/release are only called inside pools.compute so they never race with removal of the key
+        SharedPool retain() {
+            references.incrementAndGet();
+            return this;
+        }
+
+        int release() {
+            return references.decrementAndGet();
+        }
+
+        public void close() {
+            dataSource.close();
+        }
+    }
+
     private static class DataSourceHolder {
-        private final DataSource dataSource;
+        private final SharedPool pool;
         private final String databaseName;
+        private final DbType dbType;
+        private final CustomDynamicSqlDialect dialect;
         private final Instant createdAt;
-        private volatile Instant lastAccess;
+        private volatile long lastAccessTick;
 
-        DataSourceHolder(DataSource dataSource, String databaseName, Instant createdAt, Instant lastAccess) {
-            this.dataSource = dataSource;
+        DataSourceHolder(SharedPool pool, String databaseName, DbType dbType, CustomDynamicSqlDialect dialect,
+                         Instant createdAt, long lastAccessTick) {
+            this.pool = pool;
             this.databaseName = databaseName;
+            this.dbType = dbType;
+            this.dialect = dialect;
             this.createdAt = createdAt;
-            this.lastAccess = lastAccess;
+            this.lastAccessTick = lastAccessTick;
         }
 
-        public DataSource getDataSource() {
-            return dataSource;
+        public SharedPool getPool() {
+            return pool;
         }
 
         public String getDatabaseName() {
             return databaseName;
         }
 
-        public Instant getCreatedAt() {
-            return createdAt;
+        public DbType getDbType() {
+            return dbType;
         }
 
-        public Instant getLastAccess() {
-            return lastAccess;
+        public CustomDynamicSqlDialect getDialect() {
+            return dialect;
         }
 
-        public void setLastAccess(Instant lastAccess) {
-            this.lastAccess = lastAccess;
+        public Instant getCreatedAt() {
+            return createdAt;
         }
 
-        public void close() {
-            if (dataSource instanceof HikariDataSource hikari) {
-                hikari.close();
+        public long getLastAccessTick() {
+            return lastAccessTick;
+        }
+
+        // Repeated touches within a tick only read the field, so hot connections do not bounce its cache line.
+        public void touch(long tick) {
+            if (tick > lastAccessTick) {
+                lastAccessTick = tick;
             }
         }
     }
@@ -0,0 +1,80 @@
+package com.demo.todolist.customdynamic.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+// Hashed timing wheel of connection ids, slotted by idle deadline in ticks. Touches never reschedule: when an id comes
+// due its current deadline is looked up and it is either expired or moved to the slot of that later deadline, so each
+// tick only costs the connections that were due in it. Deadlines beyond one revolution simply come round again.
+final class CustomDynamicExpiryWheel {
+
+    private static final int MAX_SLOTS = 1 << 16;
+
+    private final long tickNanos;
+    private final LongSupplier nanoTime;
+    private final long origin;
+    private final ConcurrentLinkedQueue<String>[] slots;
+    private final int mask;
+    // only read and written by advance, which the scheduler never runs concurrently with itself
+    private long processedTick;
+
+    CustomDynamicExpiryWheel(Duration tick, long ttlTicks) {
+        this(tick, ttlTicks, System::nanoTime);
+    }
+
+    @SuppressWarnings("unchecked")
+    CustomDynamicExpiryWheel(Duration tick, long ttlTicks, LongSupplier nanoTime) {
+        this.tickNanos = tick.toNanos();
+        this.nanoTime = nanoTime;
+        this.origin = nanoTime.getAsLong();
+        // one revolution covers the TTL, so a fresh deadline is never visited early
+        int size = (int) Math.min(MAX_SLOTS, Long.highestOneBit(Math.max(1, ttlTicks)) << 1);
+        this.slots = new ConcurrentLinkedQueue[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.mask = size - 1;
+    }
+
+    long currentTick() {
+        return (nanoTime.getAsLong() - origin) / tickNanos;
+    }
+
+    void schedule(String connectionId, long deadlineTick) {
+        slots[(int) (deadlineTick & mask)].add(connectionId);
+    }
+
+    // deadlineOf returns the id's current deadline, or a negative value once it was removed by other means.
+    List<String> advance(ToLongFunction<String> deadlineOf) {
+        long now = currentTick();
+        // after a long pause one revolution visits every slot
+        long from = Math.max(processedTick + 1, now - mask);
+        List<String> expired = new ArrayList<>();
+        List<String> due = new ArrayList<>();
+        for (long tick = from; tick <= now; tick++) {
+            ConcurrentLinkedQueue<String> slot = slots[(int) (tick & mask)];
+            // drain first: ids rescheduled into this slot must wait for its next turn
+            for (String connectionId = slot.poll(); connectionId != null; connectionId = slot.poll()) {
+                due.add(connectionId);
+            }
+            for (String connectionId : due) {
+                long deadline = deadlineOf.applyAsLong(connectionId);
+                if (deadline < 0) {
+                    continue;
+                }
+                if (deadline <= now) {
+                    expired.add(connectionId);
+                } else {
+                    schedule(connectionId, deadline);
+                }
+            }
+            due.clear();
+        }
+        processedTick = Math.max(processedTick, now);
+        return expired;
+    }
+}
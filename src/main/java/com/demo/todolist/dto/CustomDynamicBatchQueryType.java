@@ -0,0 +1,42 @@
+package com.demo.todolist.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+public enum CustomDynamicBatchQueryType {
+    CUSTOMERS("customers", CustomDynamicCustomerQueryRequest.class),
+    CATEGORIES("categories", CustomDynamicCategoryQueryRequest.class),
+    PRODUCTS("products", CustomDynamicProductQueryRequest.class),
+    INVENTORY_MOVEMENTS("inventory-movements", CustomDynamicInventoryMovementQueryRequest.class),
+    ORDERS("orders", CustomDynamicOrderQueryRequest.class),
+    ORDER_ITEMS("order-items", CustomDynamicOrderItemQueryRequest.class),
+    PAYMENTS("payments", CustomDynamicPaymentQueryRequest.class),
+    RETURNS("returns", CustomDynamicReturnQueryRequest.class);
+
+    private final String value;
+    private final Class<?> requestType;
+
+    CustomDynamicBatchQueryType(String value, Class<?> requestType) {
+        this.value = value;
+        this.requestType = requestType;
+    }
+
+    public Class<?> getRequestType() {
+        return requestType;
+    }
+
+    @JsonValue
+    public String getValue() {
+        return value;
+    }
+
+    @JsonCreator
+    public static CustomDynamicBatchQueryType fromValue(String value) {
+        for (CustomDynamicBatchQueryType type : values()) {
+            if (type.value.equalsIgnoreCase(value) || type.name().equalsIgnoreCase(value)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("unknown query type: " + value);
+    }
+}
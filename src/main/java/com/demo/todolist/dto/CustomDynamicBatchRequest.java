@@ -0,0 +1,15 @@
+package com.demo.todolist.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public record CustomDynamicBatchRequest(
+        @NotBlank String connectionId,
+        @NotEmpty List<@Valid CustomDynamicBatchSubQuery> queries,
+        @Min(1) Long timeoutMs
+) {
+}
@@ -0,0 +1,11 @@
+package com.demo.todolist.dto;
+
+import java.util.Map;
+
+public record CustomDynamicBatchResponse(
+        Map<String, CustomDynamicBatchResult> results,
+        int succeeded,
+        int failed,
+        long elapsedMs
+) {
+}
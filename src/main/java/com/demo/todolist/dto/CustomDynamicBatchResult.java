@@ -0,0 +1,32 @@
+package com.demo.todolist.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CustomDynamicBatchResult(
+        String status,
+        Integer httpStatus,
+        Object data,
+        String error
+) {
+    public static final String OK = "OK";
+    public static final String FAILED = "FAILED";
+    public static final String TIMEOUT = "TIMEOUT";
+    public static final String REJECTED = "REJECTED";
+
+    public static CustomDynamicBatchResult ok(Object data) {
+        return new CustomDynamicBatchResult(OK, 200, data, null);
+    }
+
+    public static CustomDynamicBatchResult failed(int httpStatus, String error) {
+        return new CustomDynamicBatchResult(FAILED, httpStatus, null, error);
+    }
+
+    public static CustomDynamicBatchResult timeout() {
+        return new CustomDynamicBatchResult(TIMEOUT, 504, null, "batch deadline exceeded");
+    }
+
+    public static CustomDynamicBatchResult rejected() {
+        return new CustomDynamicBatchResult(REJECTED, 503, null, "batch executor saturated");
+    }
+}
@@ -0,0 +1,12 @@
+package com.demo.todolist.dto;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+public record CustomDynamicBatchSubQuery(
+        @NotBlank String id,
+        @NotNull CustomDynamicBatchQueryType type,
+        ObjectNode params
+) {
+}
@@ -0,0 +1,16 @@
+package com.demo.todolist.dto;
+
+import java.util.List;
+
+public record CustomDynamicBulkheadStats(
+        String databaseName,
+        int maxConcurrent,
+        int active,
+        int queued,
+        long rejected,
+        long timedOut,
+        List<Connection> connections
+) {
+    public record Connection(String connectionId, int active, int queued) {
+    }
+}
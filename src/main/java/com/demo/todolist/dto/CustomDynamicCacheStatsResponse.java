@@ -0,0 +1,13 @@
+package com.demo.todolist.dto;
+
+public record CustomDynamicCacheStatsResponse(
+        boolean enabled,
+        long entries,
+        long weightedRows,
+        long hitCount,
+        long missCount,
+        double hitRate,
+        long evictionCount,
+        double averageLoadMillis
+) {
+}
@@ -7,6 +7,8 @@ import jakarta.validation.constraints.NotBlank;
 public record CustomDynamicCategoryQueryRequest(
         @NotBlank String connectionId,
         String categoryName,
-        @Min(1) @Max(200) Integer limit
+        @Min(1) @Max(200) Integer limit,
+        String cursor,
+        CustomDynamicTotalMode totalMode
 ) {
 }
@@ -15,6 +15,9 @@ public record CustomDynamicCustomerQueryRequest(
         Boolean isVip,
         OffsetDateTime signupAfter,
         OffsetDateTime signupBefore,
-        @Min(1) @Max(200) Integer limit
+        String keyword,
+        @Min(1) @Max(200) Integer limit,
+        String cursor,
+        CustomDynamicTotalMode totalMode
 ) {
 }
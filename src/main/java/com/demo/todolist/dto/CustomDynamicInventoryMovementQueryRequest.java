@@ -13,6 +13,9 @@ public record CustomDynamicInventoryMovementQueryRequest(
         String warehouse,
         OffsetDateTime movedAfter,
         OffsetDateTime movedBefore,
-        @Min(1) @Max(200) Integer limit
+        Boolean enrich,
+        @Min(1) @Max(200) Integer limit,
+        String cursor,
+        CustomDynamicTotalMode totalMode
 ) {
 }
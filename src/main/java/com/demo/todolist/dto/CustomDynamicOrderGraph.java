@@ -0,0 +1,16 @@
+package com.demo.todolist.dto;
+
+import com.demo.todolist.entity.OrderEntity;
+import com.demo.todolist.entity.OrderItem;
+import com.demo.todolist.entity.Payment;
+import com.demo.todolist.entity.ReturnEntry;
+
+import java.util.List;
+
+public record CustomDynamicOrderGraph(
+        OrderEntity order,
+        List<OrderItem> items,
+        List<Payment> payments,
+        List<ReturnEntry> returns
+) {
+}
@@ -8,6 +8,9 @@ public record CustomDynamicOrderItemQueryRequest(
         @NotBlank String connectionId,
         Long orderId,
         Long productId,
-        @Min(1) @Max(200) Integer limit
+        Boolean enrich,
+        @Min(1) @Max(200) Integer limit,
+        String cursor,
+        CustomDynamicTotalMode totalMode
 ) {
 }
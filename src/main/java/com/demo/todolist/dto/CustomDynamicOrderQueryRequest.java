@@ -13,6 +13,8 @@ public record CustomDynamicOrderQueryRequest(
         String orderChannel,
         OffsetDateTime createdAfter,
         OffsetDateTime createdBefore,
-        @Min(1) @Max(200) Integer limit
+        @Min(1) @Max(200) Integer limit,
+        String cursor,
+        CustomDynamicTotalMode totalMode
 ) {
 }
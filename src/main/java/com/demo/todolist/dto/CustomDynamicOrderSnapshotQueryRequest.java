@@ -0,0 +1,16 @@
+package com.demo.todolist.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+import java.time.OffsetDateTime;
+
+public record CustomDynamicOrderSnapshotQueryRequest(
+        @NotBlank String connectionId,
+        String orderStatus,
+        String orderChannel,
+        String currency,
+        OffsetDateTime createdAfter,
+        OffsetDateTime createdBefore,
+        CustomDynamicSnapshotGroup groupBy
+) {
+}
@@ -0,0 +1,15 @@
+package com.demo.todolist.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record CustomDynamicOrderSnapshotResponse(
+        List<CustomDynamicOrderSnapshotRow> rows,
+        long orderWatermark,
+        int orders,
+        int orderItems,
+        long snapshotBytes,
+        Instant refreshedAt,
+        long elapsedMicros
+) {
+}
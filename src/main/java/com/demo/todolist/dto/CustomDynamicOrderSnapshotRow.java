@@ -0,0 +1,15 @@
+package com.demo.todolist.dto;
+
+import java.math.BigDecimal;
+
+public record CustomDynamicOrderSnapshotRow(
+        String group,
+        long orderCount,
+        long units,
+        BigDecimal grossAmount,
+        BigDecimal itemDiscount,
+        BigDecimal orderDiscount,
+        BigDecimal shippingFee,
+        BigDecimal netRevenue
+) {
+}
@@ -0,0 +1,18 @@
+package com.demo.todolist.dto;
+
+import java.util.List;
+
+public record CustomDynamicPageResponse<T>(
+        List<T> records,
+        String nextCursor,
+        Long total,
+        boolean cacheHit
+) {
+    public CustomDynamicPageResponse(List<T> records, String nextCursor, Long total) {
+        this(records, nextCursor, total, false);
+    }
+
+    public CustomDynamicPageResponse<T> asCacheHit() {
+        return new CustomDynamicPageResponse<>(records, nextCursor, total, true);
+    }
+}
@@ -13,6 +13,8 @@ public record CustomDynamicPaymentQueryRequest(
         String paymentStatus,
         OffsetDateTime paidAfter,
         OffsetDateTime paidBefore,
-        @Min(1) @Max(200) Integer limit
+        @Min(1) @Max(200) Integer limit,
+        String cursor,
+        CustomDynamicTotalMode totalMode
 ) {
 }
@@ -14,6 +14,9 @@ public record CustomDynamicProductQueryRequest(
         Boolean isActive,
         BigDecimal minListPrice,
         BigDecimal maxListPrice,
-        @Min(1) @Max(200) Integer limit
+        String keyword,
+        @Min(1) @Max(200) Integer limit,
+        String cursor,
+        CustomDynamicTotalMode totalMode
 ) {
 }
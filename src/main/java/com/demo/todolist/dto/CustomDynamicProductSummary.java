@@ -0,0 +1,14 @@
+package com.demo.todolist.dto;
+
+import java.math.BigDecimal;
+
+public record CustomDynamicProductSummary(
+        Long productId,
+        String sku,
+        String productName,
+        BigDecimal listPrice,
+        Boolean isActive,
+        Long categoryId,
+        String categoryName
+) {
+}
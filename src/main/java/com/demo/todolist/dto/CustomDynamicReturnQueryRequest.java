@@ -13,6 +13,9 @@ public record CustomDynamicReturnQueryRequest(
         String returnStatus,
         OffsetDateTime requestedAfter,
         OffsetDateTime requestedBefore,
-        @Min(1) @Max(200) Integer limit
+        Boolean enrich,
+        @Min(1) @Max(200) Integer limit,
+        String cursor,
+        CustomDynamicTotalMode totalMode
 ) {
 }
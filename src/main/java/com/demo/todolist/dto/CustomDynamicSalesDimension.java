@@ -0,0 +1,22 @@
+package com.demo.todolist.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Locale;
+
+public enum CustomDynamicSalesDimension {
+    CHANNEL,
+    STATUS,
+    CATEGORY;
+
+    @JsonCreator
+    public static CustomDynamicSalesDimension fromValue(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    @JsonValue
+    public String toValue() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,18 @@
+package com.demo.todolist.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+import java.time.OffsetDateTime;
+import java.util.Set;
+
+public record CustomDynamicSalesQueryRequest(
+        @NotBlank String connectionId,
+        CustomDynamicSalesBucket bucket,
+        Set<CustomDynamicSalesDimension> groupBy,
+        String orderChannel,
+        String orderStatus,
+        Long categoryId,
+        OffsetDateTime createdAfter,
+        OffsetDateTime createdBefore
+) {
+}
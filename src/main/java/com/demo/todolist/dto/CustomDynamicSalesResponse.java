@@ -0,0 +1,11 @@
+package com.demo.todolist.dto;
+
+import java.util.List;
+import java.util.Set;
+
+public record CustomDynamicSalesResponse(
+        CustomDynamicSalesBucket bucket,
+        Set<CustomDynamicSalesDimension> groupBy,
+        List<CustomDynamicSalesRow> rows
+) {
+}
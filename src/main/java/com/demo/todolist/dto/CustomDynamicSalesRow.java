@@ -0,0 +1,25 @@
+package com.demo.todolist.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Populated by MyBatis from the aggregate query; dimensions that were not grouped on stay null.
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CustomDynamicSalesRow {
+    private LocalDate bucketStart;
+    private String orderChannel;
+    private String orderStatus;
+    private Long categoryId;
+    private String categoryName;
+    private Long orderCount;
+    private Long units;
+    private BigDecimal grossAmount;
+    private BigDecimal itemDiscount;
+    private BigDecimal orderDiscount;
+    private BigDecimal shippingFee;
+    private BigDecimal netRevenue;
+}
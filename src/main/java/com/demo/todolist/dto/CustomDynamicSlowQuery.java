@@ -0,0 +1,15 @@
+package com.demo.todolist.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record CustomDynamicSlowQuery(
+        Instant executedAt,
+        String databaseName,
+        String statementId,
+        String sql,
+        List<String> parameterTypes,
+        long elapsedMs,
+        String plan
+) {
+}
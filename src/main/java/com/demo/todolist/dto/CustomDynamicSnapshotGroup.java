@@ -0,0 +1,26 @@
+package com.demo.todolist.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Locale;
+
+public enum CustomDynamicSnapshotGroup {
+    NONE,
+    STATUS,
+    CHANNEL,
+    CURRENCY;
+
+    @JsonCreator
+    public static CustomDynamicSnapshotGroup fromValue(String value) {
+        if (value == null || value.isBlank()) {
+            return NONE;
+        }
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    @JsonValue
+    public String toValue() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
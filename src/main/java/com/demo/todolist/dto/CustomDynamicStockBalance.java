@@ -0,0 +1,8 @@
+package com.demo.todolist.dto;
+
+public record CustomDynamicStockBalance(
+        Long productId,
+        String warehouse,
+        long qty
+) {
+}
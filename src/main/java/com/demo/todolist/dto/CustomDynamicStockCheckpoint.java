@@ -0,0 +1,15 @@
+package com.demo.todolist.dto;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+// Balances of all movements with moved_at <= takenAt and movement_id <= movementWatermark. rebuiltAt is when the
+// chain of incremental checkpoints this one belongs to last started from a full aggregate; null in older files.
+public record CustomDynamicStockCheckpoint(
+        String databaseName,
+        OffsetDateTime takenAt,
+        long movementWatermark,
+        List<CustomDynamicStockBalance> balances,
+        OffsetDateTime rebuiltAt
+) {
+}
@@ -0,0 +1,14 @@
+package com.demo.todolist.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+import java.time.OffsetDateTime;
+
+public record CustomDynamicStockQueryRequest(
+        @NotBlank String connectionId,
+        Long productId,
+        String warehouse,
+        Boolean nonZeroOnly,
+        OffsetDateTime asOf
+) {
+}
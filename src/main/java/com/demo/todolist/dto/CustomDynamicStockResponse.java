@@ -0,0 +1,20 @@
+package com.demo.todolist.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CustomDynamicStockResponse(
+        List<CustomDynamicStockBalance> balances,
+        long movementWatermark,
+        Instant refreshedAt,
+        OffsetDateTime asOf,
+        OffsetDateTime checkpointAt
+) {
+    public CustomDynamicStockResponse(List<CustomDynamicStockBalance> balances, long movementWatermark, Instant refreshedAt) {
+        this(balances, movementWatermark, refreshedAt, null, null);
+    }
+}
@@ -1,6 +1,9 @@
 package com.demo.todolist.entity;
 
+import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableName;
+import com.demo.todolist.dto.CustomDynamicProductSummary;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
 import java.math.BigDecimal;
@@ -14,4 +17,9 @@ public class OrderItem {
     private Integer qty;
     private BigDecimal unitPrice;
     private BigDecimal itemDiscount;
+
+    // Only filled when the query asks for enrich=true.
+    @TableField(exist = false)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private CustomDynamicProductSummary product;
 }
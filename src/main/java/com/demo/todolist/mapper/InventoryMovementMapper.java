@@ -1,9 +1,23 @@
 package com.demo.todolist.mapper;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.demo.todolist.entity.InventoryMovement;
 import org.apache.ibatis.annotations.Mapper;
 
+import java.util.List;
+
 @Mapper
 public interface InventoryMovementMapper extends BaseMapper<InventoryMovement> {
+
+    // One row per (product_id, warehouse) with qty holding SUM(qty) of the movements matching the filter.
+    default List<InventoryMovement> sumQtyByProductAndWarehouse(QueryWrapper<InventoryMovement> filter) {
+        return selectList(filter.select("product_id", "warehouse", "SUM(qty) AS qty")
+                .groupBy("product_id", "warehouse"));
+    }
+
+    default long selectMaxMovementId() {
+        InventoryMovement max = selectOne(new QueryWrapper<InventoryMovement>().select("MAX(movement_id) AS movement_id"));
+        return max == null || max.getMovementId() == null ? 0 : max.getMovementId();
+    }
 }
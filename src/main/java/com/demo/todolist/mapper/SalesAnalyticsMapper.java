@@ -0,0 +1,23 @@
+package com.demo.todolist.mapper;
+
+import com.demo.todolist.customdynamic.dialect.CustomDynamicSqlDialect;
+import com.demo.todolist.dto.CustomDynamicSalesBucket;
+import com.demo.todolist.dto.CustomDynamicSalesDimension;
+import com.demo.todolist.dto.CustomDynamicSalesQueryRequest;
+import com.demo.todolist.dto.CustomDynamicSalesRow;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.SelectProvider;
+
+import java.util.List;
+import java.util.Set;
+
+@Mapper
+public interface SalesAnalyticsMapper {
+
+    @SelectProvider(type = SalesAnalyticsSqlProvider.class, method = "selectSales")
+    List<CustomDynamicSalesRow> selectSales(@Param("dialect") CustomDynamicSqlDialect dialect,
+                                            @Param("bucket") CustomDynamicSalesBucket bucket,
+                                            @Param("dimensions") Set<CustomDynamicSalesDimension> dimensions,
+                                            @Param("request") CustomDynamicSalesQueryRequest request);
+}
@@ -0,0 +1,115 @@
+package com.demo.todolist.mapper;
+
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.demo.todolist.customdynamic.dialect.CustomDynamicSqlDialect;
+import com.demo.todolist.dto.CustomDynamicSalesBucket;
+import com.demo.todolist.dto.CustomDynamicSalesDimension;
+import com.demo.todolist.dto.CustomDynamicSalesQueryRequest;
+import com.demo.todolist.entity.Category;
+import com.demo.todolist.entity.OrderEntity;
+import com.demo.todolist.entity.OrderItem;
+import com.demo.todolist.entity.Product;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.jdbc.SQL;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Builds the sales GROUP BY for each dialect. Items are first summed per (order, category) in a derived table so
+// that order-level discount and shipping can be split across categories by gross share without double counting.
+public class SalesAnalyticsSqlProvider {
+
+    private static final String SHARE = "(CASE WHEN ic.order_id IS NULL THEN 1"
+            + " WHEN ic.order_gross = 0 THEN 1.0 / ic.order_groups"
+            + " ELSE ic.gross / ic.order_gross END)";
+
+    public static String selectSales(@Param("dialect") CustomDynamicSqlDialect dialect,
+                                     @Param("bucket") CustomDynamicSalesBucket bucket,
+                                     @Param("dimensions") Set<CustomDynamicSalesDimension> dimensions,
+                                     @Param("request") CustomDynamicSalesQueryRequest request) {
+        String bucketStart = dialect.bucketStart(bucket, "o.created_at");
+        List<String> groupColumns = new ArrayList<>();
+        groupColumns.add(bucketStart);
+        if (dimensions.contains(CustomDynamicSalesDimension.CHANNEL)) {
+            groupColumns.add("o.order_channel");
+        }
+        if (dimensions.contains(CustomDynamicSalesDimension.STATUS)) {
+            groupColumns.add("o.order_status");
+        }
+        if (dimensions.contains(CustomDynamicSalesDimension.CATEGORY)) {
+            groupColumns.add("ic.category_id");
+            groupColumns.add("c.category_name");
+        }
+
+        SQL sql = new SQL();
+        sql.SELECT(bucketStart + " AS bucket_start");
+        for (String column : groupColumns.subList(1, groupColumns.size())) {
+            sql.SELECT(column);
+        }
+        sql.SELECT("COUNT(DISTINCT o.order_id) AS order_count",
+                "COALESCE(SUM(ic.units), 0) AS units",
+                "ROUND(COALESCE(SUM(ic.gross), 0), 2) AS gross_amount",
+                "ROUND(COALESCE(SUM(ic.item_discount), 0), 2) AS item_discount",
+                "ROUND(SUM(o.discount_amt * " + SHARE + "), 2) AS order_discount",
+                "ROUND(SUM(o.shipping_fee * " + SHARE + "), 2) AS shipping_fee",
+                "ROUND(SUM(COALESCE(ic.gross - ic.item_discount, 0) + (o.shipping_fee - o.discount_amt) * " + SHARE + "), 2)"
+                        + " AS net_revenue");
+        sql.FROM(table(OrderEntity.class) + " o");
+        sql.LEFT_OUTER_JOIN("(" + itemsByOrderAndCategory(request) + ") ic ON ic.order_id = o.order_id");
+        if (dimensions.contains(CustomDynamicSalesDimension.CATEGORY)) {
+            sql.LEFT_OUTER_JOIN(table(Category.class) + " c ON c.category_id = ic.category_id");
+        }
+        for (String condition : orderConditions("o", request)) {
+            sql.WHERE(condition);
+        }
+        if (request.categoryId() != null) {
+            sql.WHERE("ic.category_id = #{request.categoryId}");
+        }
+        sql.GROUP_BY(groupColumns.toArray(new String[0]));
+        sql.ORDER_BY(groupColumns.toArray(new String[0]));
+        return sql.toString();
+    }
+
+    // The order filters are repeated inside the derived table: the join to it cannot be pushed through the GROUP BY
+    // and window functions, so without them every call would aggregate the whole order_items table.
+    private static String itemsByOrderAndCategory(CustomDynamicSalesQueryRequest request) {
+        List<String> conditions = orderConditions("fo", request);
+        return "SELECT oi.order_id, p.category_id,"
+                + " SUM(oi.qty) AS units,"
+                + " SUM(oi.qty * oi.unit_price) AS gross,"
+                + " SUM(oi.item_discount) AS item_discount,"
+                + " SUM(SUM(oi.qty * oi.unit_price)) OVER (PARTITION BY oi.order_id) AS order_gross,"
+                + " COUNT(*) OVER (PARTITION BY oi.order_id) AS order_groups"
+                + " FROM " + table(OrderItem.class) + " oi"
+                + " JOIN " + table(Product.class) + " p ON p.product_id = oi.product_id"
+                + (conditions.isEmpty() ? "" : " JOIN " + table(OrderEntity.class) + " fo ON fo.order_id = oi.order_id"
+                        + " WHERE " + String.join(" AND ", conditions))
+                + " GROUP BY oi.order_id, p.category_id";
+    }
+
+    private static List<String> orderConditions(String alias, CustomDynamicSalesQueryRequest request) {
+        List<String> conditions = new ArrayList<>();
+        if (request.createdAfter() != null) {
+            conditions.add(alias + ".created_at >= #{request.createdAfter}");
+        }
+        if (request.createdBefore() != null) {
+            conditions.add(alias + ".created_at <= #{request.createdBefore}");
+        }
+        if (notBlank(request.orderChannel())) {
+            conditions.add(alias + ".order_channel = #{request.orderChannel}");
+        }
+        if (notBlank(request.orderStatus())) {
+            conditions.add(alias + ".order_status = #{request.orderStatus}");
+        }
+        return conditions;
+    }
+
+    private static String table(Class<?> entityClass) {
+        return TableInfoHelper.getTableInfo(entityClass).getTableName();
+    }
+
+    private static boolean notBlank(String value) {
+        return value != null && !value.isBlank();
+    }
+}
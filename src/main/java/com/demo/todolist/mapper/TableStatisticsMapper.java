@@ -0,0 +1,21 @@
+package com.demo.todolist.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+@Mapper
+public interface TableStatisticsMapper {
+
+    @Select("SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = to_regclass(#{qualifiedName})")
+    Long estimatePostgresRows(@Param("qualifiedName") String qualifiedName);
+
+    @Select("SELECT num_rows FROM all_tables WHERE owner = UPPER(#{schema}) AND table_name = UPPER(#{table})")
+    Long estimateOracleRows(@Param("schema") String schema, @Param("table") String table);
+
+    @Select("SELECT table_rows FROM information_schema.tables WHERE table_schema = #{schema} AND table_name = #{table}")
+    Long estimateMysqlRows(@Param("schema") String schema, @Param("table") String table);
+
+    @Select("SELECT SUM(p.rows) FROM sys.partitions p WHERE p.object_id = OBJECT_ID(#{qualifiedName}) AND p.index_id IN (0, 1)")
+    Long estimateMssqlRows(@Param("qualifiedName") String qualifiedName);
+}
@@ -0,0 +1,44 @@
+package com.demo.todolist.service;
+
+import com.demo.todolist.customdynamic.config.CustomDynamicDataSourceContext;
+import com.demo.todolist.customdynamic.service.CustomDynamicDataSourceRegistry;
+import com.demo.todolist.dto.CustomDynamicSalesBucket;
+import com.demo.todolist.dto.CustomDynamicSalesDimension;
+import com.demo.todolist.dto.CustomDynamicSalesQueryRequest;
+import com.demo.todolist.dto.CustomDynamicSalesResponse;
+import com.demo.todolist.dto.CustomDynamicSalesRow;
+import com.demo.todolist.mapper.SalesAnalyticsMapper;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+public class CustomDynamicAnalyticsService {
+
+    private final CustomDynamicDataSourceRegistry registry;
+    private final SalesAnalyticsMapper salesAnalyticsMapper;
+    private final CustomDynamicBulkheads bulkheads;
+
+    public CustomDynamicAnalyticsService(CustomDynamicDataSourceRegistry registry,
+                                         SalesAnalyticsMapper salesAnalyticsMapper,
+                                         CustomDynamicBulkheads bulkheads) {
+        this.registry = registry;
+        this.salesAnalyticsMapper = salesAnalyticsMapper;
+        this.bulkheads = bulkheads;
+    }
+
+    // A single aggregate query per request; only the grouped rows leave the database.
+    public CustomDynamicSalesResponse querySales(CustomDynamicSalesQueryRequest request) {
+        String connectionId = request.connectionId();
+        registry.touch(connectionId);
+        CustomDynamicSalesBucket bucket = request.bucket() == null ? CustomDynamicSalesBucket.DAY : request.bucket();
+        Set<CustomDynamicSalesDimension> dimensions = request.groupBy() == null || request.groupBy().isEmpty()
+                ? EnumSet.allOf(CustomDynamicSalesDimension.class)
+                : EnumSet.copyOf(request.groupBy());
+        List<CustomDynamicSalesRow> rows = bulkheads.call(connectionId, () -> CustomDynamicDataSourceContext.callWith(connectionId,
+                () -> salesAnalyticsMapper.selectSales(registry.getDialect(connectionId), bucket, dimensions, request)));
+        return new CustomDynamicSalesResponse(bucket, dimensions, rows);
+    }
+}
@@ -0,0 +1,209 @@
+package com.demo.todolist.service;
+
+import com.demo.todolist.config.CustomDynamicQueryProperties;
+import com.demo.todolist.customdynamic.config.CustomDynamicDataSourceContext;
+import com.demo.todolist.customdynamic.service.CustomDynamicDataSourceRegistry;
+import com.demo.todolist.dto.CustomDynamicBatchRequest;
+import com.demo.todolist.dto.CustomDynamicBatchResponse;
+import com.demo.todolist.dto.CustomDynamicBatchResult;
+import com.demo.todolist.dto.CustomDynamicBatchSubQuery;
+import com.demo.todolist.dto.CustomDynamicCategoryQueryRequest;
+import com.demo.todolist.dto.CustomDynamicCustomerQueryRequest;
+import com.demo.todolist.dto.CustomDynamicInventoryMovementQueryRequest;
+import com.demo.todolist.dto.CustomDynamicOrderItemQueryRequest;
+import com.demo.todolist.dto.CustomDynamicOrderQueryRequest;
+import com.demo.todolist.dto.CustomDynamicPaymentQueryRequest;
+import com.demo.todolist.dto.CustomDynamicProductQueryRequest;
+import com.demo.todolist.dto.CustomDynamicReturnQueryRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+@Service
+public class CustomDynamicBatchService {
+
+    private final CustomDynamicDataSourceRegistry registry;
+    private final CustomDynamicCommerceService commerceService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final CustomDynamicQueryProperties.Batch settings;
+    private final ExecutorService executor;
+
+    public CustomDynamicBatchService(CustomDynamicDataSourceRegistry registry,
+                                     CustomDynamicCommerceService commerceService,
+                                     ObjectMapper objectMapper,
+                                     Validator validator,
+                                     CustomDynamicQueryProperties properties,
+                                     Environment environment) {
+        this.registry = registry;
+        this.commerceService = commerceService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.settings = properties.getBatch();
+        this.executor = Threading.VIRTUAL.isActive(environment) ? virtualExecutor() : platformExecutor(settings);
+    }
+
+    public CustomDynamicBatchResponse execute(CustomDynamicBatchRequest request) {
+        long startedAt = System.nanoTime();
+        String connectionId = request.connectionId();
+        if (request.queries().size() > settings.getMaxQueries()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "a batch may contain at most " + settings.getMaxQueries() + " queries");
+        }
+        Set<String> ids = new HashSet<>();
+        for (CustomDynamicBatchSubQuery query : request.queries()) {
+            if (!ids.add(query.id())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "duplicate query id: " + query.id());
+            }
+        }
+        registry.touch(connectionId);
+
+        long timeoutMs = Math.min(request.timeoutMs() == null ? settings.getDefaultTimeoutMs() : request.timeoutMs(),
+                settings.getMaxTimeoutMs());
+        long deadline = startedAt + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+
+        Map<String, CustomDynamicBatchResult> results = new LinkedHashMap<>();
+        Map<String, Future<Object>> pending = new LinkedHashMap<>();
+        for (CustomDynamicBatchSubQuery query : request.queries()) {
+            Object typedRequest;
+            try {
+                typedRequest = toTypedRequest(connectionId, query);
+            } catch (ResponseStatusException ex) {
+                results.put(query.id(), CustomDynamicBatchResult.failed(ex.getStatusCode().value(), ex.getReason()));
+                continue;
+            }
+            try {
+                // workers skip the registry checks done above because the routing key is already bound
+                pending.put(query.id(), executor.submit(CustomDynamicDataSourceContext.bind(connectionId,
+                        () -> run(typedRequest))));
+            } catch (RejectedExecutionException ex) {
+                results.put(query.id(), CustomDynamicBatchResult.rejected());
+            }
+        }
+
+        for (Map.Entry<String, Future<Object>> entry : pending.entrySet()) {
+            results.put(entry.getKey(), await(entry.getValue(), deadline));
+        }
+
+        Map<String, CustomDynamicBatchResult> ordered = new LinkedHashMap<>();
+        int succeeded = 0;
+        for (CustomDynamicBatchSubQuery query : request.queries()) {
+            CustomDynamicBatchResult result = results.get(query.id());
+            ordered.put(query.id(), result);
+            if (CustomDynamicBatchResult.OK.equals(result.status())) {
+                succeeded++;
+            }
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        return new CustomDynamicBatchResponse(ordered, succeeded, ordered.size() - succeeded, elapsedMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // With virtual threads the Hikari pool of the target connection is the only concurrency limit.
+    private static ExecutorService virtualExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("dynamic-batch-", 0).factory());
+    }
+
+    private static ExecutorService platformExecutor(CustomDynamicQueryProperties.Batch settings) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(settings.getThreads(), settings.getThreads(),
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(settings.getQueueCapacity()),
+                new CustomizableThreadFactory("dynamic-batch-"));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private CustomDynamicBatchResult await(Future<Object> future, long deadline) {
+        try {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            return CustomDynamicBatchResult.ok(future.get(remaining, TimeUnit.NANOSECONDS));
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            return CustomDynamicBatchResult.timeout();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof ResponseStatusException statusException) {
+                return CustomDynamicBatchResult.failed(statusException.getStatusCode().value(), statusException.getReason());
+            }
+            return CustomDynamicBatchResult.failed(HttpStatus.INTERNAL_SERVER_ERROR.value(), String.valueOf(cause.getMessage()));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return CustomDynamicBatchResult.failed(HttpStatus.SERVICE_UNAVAILABLE.value(), "batch interrupted");
+        }
+    }
+
+    private Object toTypedRequest(String connectionId, CustomDynamicBatchSubQuery query) {
+        ObjectNode params = query.params() == null ? objectMapper.createObjectNode() : query.params().deepCopy();
+        params.put("connectionId", connectionId);
+        Object typedRequest;
+        try {
+            typedRequest = objectMapper.treeToValue(params, query.type().getRequestType());
+        } catch (Exception ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid params: " + ex.getMessage(), ex);
+        }
+        Set<ConstraintViolation<Object>> violations = validator.validate(typedRequest);
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, message);
+        }
+        return typedRequest;
+    }
+
+    private Object run(Object request) {
+        if (request instanceof CustomDynamicCustomerQueryRequest customers) {
+            return commerceService.queryCustomers(customers);
+        }
+        if (request instanceof CustomDynamicCategoryQueryRequest categories) {
+            return commerceService.queryCategories(categories);
+        }
+        if (request instanceof CustomDynamicProductQueryRequest products) {
+            return commerceService.queryProducts(products);
+        }
+        if (request instanceof CustomDynamicInventoryMovementQueryRequest movements) {
+            return commerceService.queryInventoryMovements(movements);
+        }
+        if (request instanceof CustomDynamicOrderQueryRequest orders) {
+            return commerceService.queryOrders(orders);
+        }
+        if (request instanceof CustomDynamicOrderItemQueryRequest orderItems) {
+            return commerceService.queryOrderItems(orderItems);
+        }
+        if (request instanceof CustomDynamicPaymentQueryRequest payments) {
+            return commerceService.queryPayments(payments);
+        }
+        if (request instanceof CustomDynamicReturnQueryRequest returns) {
+            return commerceService.queryReturns(returns);
+        }
+        throw new IllegalArgumentException("unsupported batch request: " + request.getClass().getSimpleName());
+    }
+}
@@ -0,0 +1,274 @@
+package com.demo.todolist.service;
+
+import com.demo.todolist.config.CustomDynamicQueryProperties;
+import com.demo.todolist.customdynamic.service.CustomDynamicDataSourceRegistry;
+import com.demo.todolist.dto.CustomDynamicBulkheadStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Caps concurrent queries per connection id and per configured database. Requests over a limit wait in a queue of
+// their own connection id, and each freed slot goes to the next connection in round-robin order, so one busy tenant
+// cannot occupy every request thread and pool connection while the others queue behind it. A full queue or a wait
+// longer than the queue timeout fails fast with 429 and Retry-After. A thread already holding a slot of a database runs
+// nested calls for that database on the same slot, so nested paths such as index builds never wait on themselves.
+@Service
+public class CustomDynamicBulkheads {
+
+    private final CustomDynamicDataSourceRegistry registry;
+    private final CustomDynamicQueryProperties.Bulkhead settings;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Gate> gates = new ConcurrentHashMap<>();
+    // databases whose slot the current thread holds
+    private final ThreadLocal<Set<String>> held = ThreadLocal.withInitial(HashSet::new);
+
+    public CustomDynamicBulkheads(CustomDynamicDataSourceRegistry registry,
+                                  CustomDynamicQueryProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.registry = registry;
+        this.settings = properties.getBulkhead();
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T call(String connectionId, Supplier<T> action) {
+        if (!settings.isEnabled()) {
+            return action.get();
+        }
+        String databaseName = registry.getDatabaseName(connectionId);
+        Set<String> databases = held.get();
+        if (databases.contains(databaseName)) {
+            return action.get();
+        }
+        Gate gate = gates.computeIfAbsent(databaseName, Gate::new);
+        gate.acquire(connectionId);
+        databases.add(databaseName);
+        try {
+            return action.get();
+        } finally {
+            databases.remove(databaseName);
+            gate.release(connectionId);
+        }
+    }
+
+    public void run(String connectionId, Runnable action) {
+        call(connectionId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public List<CustomDynamicBulkheadStats> stats() {
+        return gates.values().stream()
+                .map(Gate::stats)
+                .sorted(Comparator.comparing(CustomDynamicBulkheadStats::databaseName))
+                .toList();
+    }
+
+    private ResponseStatusException rejected(String reason) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, settings.getRetryAfter().toSeconds())));
+        return new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, reason) {
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        };
+    }
+
+    private final class Gate {
+        private final String databaseName;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Tenant> tenants = new HashMap<>();
+        // connections with queued requests, in the order they are served next
+        private final ArrayDeque<Tenant> ring = new ArrayDeque<>();
+        private final Counter queueFull;
+        private final Counter timeouts;
+        // written under the lock, read without it by the gauges
+        private volatile int active;
+        private volatile int queued;
+        private long rejected;
+        private long timedOut;
+
+        Gate(String databaseName) {
+            this.databaseName = databaseName;
+            this.queueFull = rejectionCounter("queue-full");
+            this.timeouts = rejectionCounter("timeout");
+            Gauge.builder("dynamic.bulkhead.active", this, gate -> gate.active)
+                    .description("Queries running inside the bulkhead")
+                    .tag("database", databaseName)
+                    .register(meterRegistry);
+            Gauge.builder("dynamic.bulkhead.queued", this, gate -> gate.queued)
+                    .description("Queries waiting for a bulkhead slot")
+                    .tag("database", databaseName)
+                    .register(meterRegistry);
+        }
+
+        void acquire(String connectionId) {
+            Tenant tenant;
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            lock.lock();
+            try {
+                tenant = tenants.computeIfAbsent(connectionId, Tenant::new);
+                if (tenant.waiters.isEmpty() && tenant.active < settings.getMaxConcurrentPerConnection()
+                        && active < settings.getMaxConcurrentPerDatabase()) {
+                    tenant.active++;
+                    active++;
+                    return;
+                }
+                if (tenant.waiters.size() >= settings.getMaxQueuedPerConnection()) {
+                    rejected++;
+                    queueFull.increment();
+                    removeIfIdle(tenant);
+                    throw rejected("too many queued queries for this connection");
+                }
+                if (tenant.waiters.isEmpty()) {
+                    ring.add(tenant);
+                }
+                tenant.waiters.add(waiter);
+                queued++;
+            } finally {
+                lock.unlock();
+            }
+            await(tenant, waiter);
+        }
+
+        void release(String connectionId) {
+            lock.lock();
+            try {
+                Tenant tenant = tenants.get(connectionId);
+                tenant.active--;
+                active--;
+                dispatch();
+                removeIfIdle(tenant);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        CustomDynamicBulkheadStats stats() {
+            lock.lock();
+            try {
+                List<CustomDynamicBulkheadStats.Connection> connections = new ArrayList<>();
+                for (Tenant tenant : tenants.values()) {
+                    connections.add(new CustomDynamicBulkheadStats.Connection(tenant.connectionId, tenant.active,
+                            tenant.waiters.size()));
+                }
+                connections.sort(Comparator.comparing(CustomDynamicBulkheadStats.Connection::connectionId));
+                return new CustomDynamicBulkheadStats(databaseName, settings.getMaxConcurrentPerDatabase(), active, queued,
+                        rejected, timedOut, connections);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void await(Tenant tenant, CompletableFuture<Void> waiter) {
+            try {
+                waiter.get(settings.getQueueTimeout().toNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException ex) {
+                if (abandon(tenant, waiter)) {
+                    throw rejected("timed out waiting for a free slot for this connection");
+                }
+                // granted just as the wait ran out
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                if (!abandon(tenant, waiter)) {
+                    release(tenant.connectionId);
+                }
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "interrupted while queued");
+            } catch (ExecutionException ex) {
+                // waiters are only ever completed normally
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        // False if the waiter was granted a slot in the meantime, which the caller then owns.
+        private boolean abandon(Tenant tenant, CompletableFuture<Void> waiter) {
+            lock.lock();
+            try {
+                if (!tenant.waiters.remove(waiter)) {
+                    return false;
+                }
+                queued--;
+                if (tenant.waiters.isEmpty()) {
+                    ring.remove(tenant);
+                }
+                if (!Thread.currentThread().isInterrupted()) {
+                    timedOut++;
+                    timeouts.increment();
+                }
+                removeIfIdle(tenant);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Called with the lock held. Connections at their own limit are skipped, not waited for.
+        private void dispatch() {
+            int skipped = 0;
+            while (active < settings.getMaxConcurrentPerDatabase() && skipped < ring.size()) {
+                Tenant tenant = ring.poll();
+                if (tenant.active >= settings.getMaxConcurrentPerConnection()) {
+                    ring.add(tenant);
+                    skipped++;
+                    continue;
+                }
+                CompletableFuture<Void> waiter = tenant.waiters.poll();
+                queued--;
+                tenant.active++;
+                active++;
+                if (!tenant.waiters.isEmpty()) {
+                    ring.add(tenant);
+                }
+                skipped = 0;
+                waiter.complete(null);
+            }
+        }
+
+        private void removeIfIdle(Tenant tenant) {
+            if (tenant.active == 0 && tenant.waiters.isEmpty()) {
+                tenants.remove(tenant.connectionId);
+            }
+        }
+
+        private Counter rejectionCounter(String reason) {
+            return Counter.builder("dynamic.bulkhead.rejected")
+                    .description("Queries turned away with 429 by the bulkhead")
+                    .tag("database", databaseName)
+                    .tag("reason", reason)
+                    .register(meterRegistry);
+        }
+    }
+
+    // Guarded by the owning gate's lock.
+    private static final class Tenant {
+        private final String connectionId;
+        private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+        private int active;
+
+        Tenant(String connectionId) {
+            this.connectionId = connectionId;
+        }
+    }
+}
@@ -1,18 +1,21 @@
 package com.demo.todolist.service;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.demo.todolist.customdynamic.config.CustomDynamicDataSourceContext;
+import com.demo.todolist.customdynamic.dialect.CustomDynamicSqlDialect;
 import com.demo.todolist.customdynamic.service.CustomDynamicDataSourceRegistry;
 import com.demo.todolist.dto.CustomDynamicCategoryQueryRequest;
 import com.demo.todolist.dto.CustomDynamicCustomerQueryRequest;
 import com.demo.todolist.dto.CustomDynamicInventoryMovementQueryRequest;
+import com.demo.todolist.dto.CustomDynamicOrderGraph;
 import com.demo.todolist.dto.CustomDynamicOrderItemQueryRequest;
 import com.demo.todolist.dto.CustomDynamicOrderQueryRequest;
+import com.demo.todolist.dto.CustomDynamicPageResponse;
 import com.demo.todolist.dto.CustomDynamicPaymentQueryRequest;
 import com.demo.todolist.dto.CustomDynamicProductQueryRequest;
 import com.demo.todolist.dto.CustomDynamicReturnQueryRequest;
+import com.demo.todolist.dto.CustomDynamicTotalMode;
 import com.demo.todolist.entity.Category;
 import com.demo.todolist.entity.Customer;
 import com.demo.todolist.entity.InventoryMovement;
@@ -21,251 +24,257 @@ import com.demo.todolist.entity.OrderItem;
 import com.demo.todolist.entity.Payment;
 import com.demo.todolist.entity.Product;
 import com.demo.todolist.entity.ReturnEntry;
-import com.demo.todolist.mapper.CategoryMapper;
-import com.demo.todolist.mapper.CustomerMapper;
-import com.demo.todolist.mapper.InventoryMovementMapper;
-import com.demo.todolist.mapper.OrderEntityMapper;
-import com.demo.todolist.mapper.OrderItemMapper;
-import com.demo.todolist.mapper.PaymentMapper;
-import com.demo.todolist.mapper.ProductMapper;
-import com.demo.todolist.mapper.ReturnEntryMapper;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 @Service
 public class CustomDynamicCommerceService {
 
     private static final int DEFAULT_LIMIT = 50;
+    private static final String CUSTOMERS = "customers";
+    private static final String CATEGORIES = "categories";
+    private static final String PRODUCTS = "products";
+    private static final String INVENTORY_MOVEMENTS = "inventory-movements";
+    private static final String ORDERS = "orders";
+    private static final String ORDER_GRAPHS = "orders-graph";
+    private static final String ORDER_ITEMS = "order-items";
+    private static final String PAYMENTS = "payments";
+    private static final String RETURNS = "returns";
 
     private final CustomDynamicDataSourceRegistry registry;
-    private final CustomerMapper customerMapper;
-    private final CategoryMapper categoryMapper;
-    private final ProductMapper productMapper;
-    private final InventoryMovementMapper inventoryMovementMapper;
-    private final OrderEntityMapper orderEntityMapper;
-    private final OrderItemMapper orderItemMapper;
-    private final PaymentMapper paymentMapper;
-    private final ReturnEntryMapper returnEntryMapper;
+    private final CustomDynamicQueryTemplates queryTemplates;
+    private final CustomDynamicTotalEstimator totalEstimator;
+    private final CustomDynamicQueryCache queryCache;
+    private final CustomDynamicDimensionCache dimensionCache;
+    private final CustomDynamicNameSearchIndex nameSearchIndex;
+    private final CustomDynamicQueryMetrics queryMetrics;
+    private final CustomDynamicBulkheads bulkheads;
 
     public CustomDynamicCommerceService(CustomDynamicDataSourceRegistry registry,
-                                  CustomerMapper customerMapper,
-                                  CategoryMapper categoryMapper,
-                                  ProductMapper productMapper,
-                                  InventoryMovementMapper inventoryMovementMapper,
-                                  OrderEntityMapper orderEntityMapper,
-                                  OrderItemMapper orderItemMapper,
-                                  PaymentMapper paymentMapper,
-                                  ReturnEntryMapper returnEntryMapper) {
+                                  CustomDynamicQueryTemplates queryTemplates,
+                                  CustomDynamicTotalEstimator totalEstimator,
+                                  CustomDynamicQueryCache queryCache,
+                                  CustomDynamicDimensionCache dimensionCache,
+                                  CustomDynamicNameSearchIndex nameSearchIndex,
+                                  CustomDynamicQueryMetrics queryMetrics,
+                                  CustomDynamicBulkheads bulkheads) {
         this.registry = registry;
-        this.customerMapper = customerMapper;
-        this.categoryMapper = categoryMapper;
-        this.productMapper = productMapper;
-        this.inventoryMovementMapper = inventoryMovementMapper;
-        this.orderEntityMapper = orderEntityMapper;
-        this.orderItemMapper = orderItemMapper;
-        this.paymentMapper = paymentMapper;
-        this.returnEntryMapper = returnEntryMapper;
+        this.queryTemplates = queryTemplates;
+        this.totalEstimator = totalEstimator;
+        this.queryCache = queryCache;
+        this.dimensionCache = dimensionCache;
+        this.nameSearchIndex = nameSearchIndex;
+        this.queryMetrics = queryMetrics;
+        this.bulkheads = bulkheads;
     }
 
-    public List<Customer> queryCustomers(CustomDynamicCustomerQueryRequest request) {
-        return withConnection(request.connectionId(), () -> {
-            QueryWrapper<Customer> query = new QueryWrapper<>();
-            query.select(
-                    "customer_id",
-                    "email",
-                    "UTL_I18N.RAW_TO_NCHAR(UTL_RAW.CAST_TO_RAW(full_name), 'xxxx') AS full_name",
-                    "phone",
-                    "country",
-                    "city",
-                    "signup_at",
-                    "is_vip"
-            );
-            if (notBlank(request.email())) {
-                query.eq("email", request.email());
-            }
-            if (notBlank(request.fullName())) {
-                query.like("full_name", request.fullName());
-            }
-            if (notBlank(request.country())) {
-                query.eq("country", request.country());
-            }
-            if (notBlank(request.city())) {
-                query.eq("city", request.city());
-            }
-            if (request.isVip() != null) {
-                query.eq("is_vip", request.isVip());
-            }
-            if (request.signupAfter() != null) {
-                query.ge("signup_at", request.signupAfter());
-            }
-            if (request.signupBefore() != null) {
-                query.le("signup_at", request.signupBefore());
-            }
-            return customerMapper.selectList(query);
+    public CustomDynamicPageResponse<Customer> queryCustomers(CustomDynamicCustomerQueryRequest request) {
+        CustomDynamicKeysetCursor cursor = CustomDynamicKeysetCursor.decode(CUSTOMERS, request.cursor());
+        return cached(request.connectionId(), CUSTOMERS, request, () -> {
+            int limit = limitOrDefault(request.limit());
+            // The LIKE filters stay on the query, so the database verifies the index candidates.
+            CustomDynamicNameSearchIndex.Candidates candidates =
+                    nameSearchIndex.customerCandidates(request.connectionId(), request.fullName(), request.keyword());
+            CustomDynamicSqlDialect dialect = registry.getDialect(request.connectionId());
+            List<Customer> rows = queryTemplates.select(CustomDynamicQueryTemplate.CUSTOMERS, dialect, request, candidates, cursor, pageOf(limit));
+            return toPage(rows, limit, row -> CustomDynamicKeysetCursor.encode(CUSTOMERS, null, row.getCustomerId()),
+                    total(request.connectionId(), request.totalMode(), Customer.class,
+                            () -> queryTemplates.count(CustomDynamicQueryTemplate.CUSTOMERS, dialect, request, candidates)));
         });
     }
 
-    public List<Category> queryCategories(CustomDynamicCategoryQueryRequest request) {
-        return withConnection(request.connectionId(), () -> {
-            LambdaQueryWrapper<Category> query = new LambdaQueryWrapper<>();
-            if (notBlank(request.categoryName())) {
-                query.like(Category::getCategoryName, request.categoryName());
-            }
-            Page<Category> page = new Page<>(1, limitOrDefault(request.limit()));
-            return categoryMapper.selectPage(page, query).getRecords();
-        });
+    public CustomDynamicPageResponse<Category> queryCategories(CustomDynamicCategoryQueryRequest request) {
+        CustomDynamicKeysetCursor cursor = CustomDynamicKeysetCursor.decode(CATEGORIES, request.cursor());
+        return cached(request.connectionId(), CATEGORIES, request,
+                () -> page(request.connectionId(), CustomDynamicQueryTemplate.CATEGORIES, request, cursor, request.limit(), request.totalMode(),
+                        row -> CustomDynamicKeysetCursor.encode(CATEGORIES, null, row.getCategoryId())));
     }
 
-    public List<Product> queryProducts(CustomDynamicProductQueryRequest request) {
-        return withConnection(request.connectionId(), () -> {
-            LambdaQueryWrapper<Product> query = new LambdaQueryWrapper<>();
-            if (notBlank(request.sku())) {
-                query.eq(Product::getSku, request.sku());
-            }
-            if (notBlank(request.productName())) {
-                query.like(Product::getProductName, request.productName());
-            }
-            if (request.categoryId() != null) {
-                query.eq(Product::getCategoryId, request.categoryId());
-            }
-            if (request.isActive() != null) {
-                query.eq(Product::getIsActive, request.isActive());
-            }
-            if (request.minListPrice() != null) {
-                query.ge(Product::getListPrice, request.minListPrice());
-            }
-            if (request.maxListPrice() != null) {
-                query.le(Product::getListPrice, request.maxListPrice());
-            }
-            Page<Product> page = new Page<>(1, limitOrDefault(request.limit()));
-            return productMapper.selectPage(page, query).getRecords();
+    public CustomDynamicPageResponse<Product> queryProducts(CustomDynamicProductQueryRequest request) {
+        CustomDynamicKeysetCursor cursor = CustomDynamicKeysetCursor.decode(PRODUCTS, request.cursor());
+        return cached(request.connectionId(), PRODUCTS, request, () -> {
+            int limit = limitOrDefault(request.limit());
+            CustomDynamicNameSearchIndex.Candidates candidates =
+                    nameSearchIndex.productCandidates(request.connectionId(), request.productName(), request.keyword());
+            CustomDynamicSqlDialect dialect = registry.getDialect(request.connectionId());
+            List<Product> rows = queryTemplates.select(CustomDynamicQueryTemplate.PRODUCTS, dialect, request, candidates, cursor, pageOf(limit));
+            return toPage(rows, limit, row -> CustomDynamicKeysetCursor.encode(PRODUCTS, null, row.getProductId()),
+                    total(request.connectionId(), request.totalMode(), Product.class,
+                            () -> queryTemplates.count(CustomDynamicQueryTemplate.PRODUCTS, dialect, request, candidates)));
         });
     }
 
-    public List<InventoryMovement> queryInventoryMovements(CustomDynamicInventoryMovementQueryRequest request) {
-        return withConnection(request.connectionId(), () -> {
-            LambdaQueryWrapper<InventoryMovement> query = new LambdaQueryWrapper<>();
-            if (request.productId() != null) {
-                query.eq(InventoryMovement::getProductId, request.productId());
-            }
-            if (notBlank(request.movementType())) {
-                query.eq(InventoryMovement::getMovementType, request.movementType());
-            }
-            if (notBlank(request.warehouse())) {
-                query.eq(InventoryMovement::getWarehouse, request.warehouse());
-            }
-            if (request.movedAfter() != null) {
-                query.ge(InventoryMovement::getMovedAt, request.movedAfter());
-            }
-            if (request.movedBefore() != null) {
-                query.le(InventoryMovement::getMovedAt, request.movedBefore());
-            }
-            Page<InventoryMovement> page = new Page<>(1, limitOrDefault(request.limit()));
-            return inventoryMovementMapper.selectPage(page, query).getRecords();
+    public CustomDynamicPageResponse<InventoryMovement> queryInventoryMovements(CustomDynamicInventoryMovementQueryRequest request) {
+        CustomDynamicKeysetCursor cursor = CustomDynamicKeysetCursor.decode(INVENTORY_MOVEMENTS, request.cursor());
+        return cached(request.connectionId(), INVENTORY_MOVEMENTS, request, () -> {
+            CustomDynamicPageResponse<InventoryMovement> page = page(request.connectionId(), CustomDynamicQueryTemplate.INVENTORY_MOVEMENTS,
+                    request, cursor, request.limit(), request.totalMode(),
+                    row -> CustomDynamicKeysetCursor.encode(INVENTORY_MOVEMENTS, row.getMovedAt(), row.getMovementId()));
+            if (Boolean.TRUE.equals(request.enrich())) {
+                dimensionCache.enrichProducts(request.connectionId(), page.records(), InventoryMovement::getProductId, InventoryMovement::setProduct);
+            }
+            return page;
         });
     }
 
-    public List<OrderEntity> queryOrders(CustomDynamicOrderQueryRequest request) {
-        return withConnection(request.connectionId(), () -> {
-            LambdaQueryWrapper<OrderEntity> query = new LambdaQueryWrapper<>();
-            if (request.customerId() != null) {
-                query.eq(OrderEntity::getCustomerId, request.customerId());
-            }
-            if (notBlank(request.orderStatus())) {
-                query.eq(OrderEntity::getOrderStatus, request.orderStatus());
-            }
-            if (notBlank(request.orderChannel())) {
-                query.eq(OrderEntity::getOrderChannel, request.orderChannel());
-            }
-            if (request.createdAfter() != null) {
-                query.ge(OrderEntity::getCreatedAt, request.createdAfter());
-            }
-            if (request.createdBefore() != null) {
-                query.le(OrderEntity::getCreatedAt, request.createdBefore());
-            }
-            Page<OrderEntity> page = new Page<>(1, limitOrDefault(request.limit()));
-            return orderEntityMapper.selectPage(page, query).getRecords();
-        });
+    public CustomDynamicPageResponse<OrderEntity> queryOrders(CustomDynamicOrderQueryRequest request) {
+        CustomDynamicKeysetCursor cursor = CustomDynamicKeysetCursor.decode(ORDERS, request.cursor());
+        return cached(request.connectionId(), ORDERS, request, () -> orderPage(request, cursor));
     }
 
-    public List<OrderItem> queryOrderItems(CustomDynamicOrderItemQueryRequest request) {
-        return withConnection(request.connectionId(), () -> {
-            LambdaQueryWrapper<OrderItem> query = new LambdaQueryWrapper<>();
-            if (request.orderId() != null) {
-                query.eq(OrderItem::getOrderId, request.orderId());
-            }
-            if (request.productId() != null) {
-                query.eq(OrderItem::getProductId, request.productId());
-            }
-            Page<OrderItem> page = new Page<>(1, limitOrDefault(request.limit()));
-            return orderItemMapper.selectPage(page, query).getRecords();
+    // One page query plus one IN query per child table, regardless of how many orders are on the page.
+    public CustomDynamicPageResponse<CustomDynamicOrderGraph> queryOrderGraphs(CustomDynamicOrderQueryRequest request) {
+        CustomDynamicKeysetCursor cursor = CustomDynamicKeysetCursor.decode(ORDERS, request.cursor());
+        return cached(request.connectionId(), ORDER_GRAPHS, request, () -> {
+            CustomDynamicPageResponse<OrderEntity> orders = orderPage(request, cursor);
+            CustomDynamicSqlDialect dialect = registry.getDialect(request.connectionId());
+            List<Long> orderIds = orders.records().stream().map(OrderEntity::getOrderId).toList();
+            Map<Long, List<OrderItem>> items = groupByOrderId(selectByOrderIds(orderIds,
+                    ids -> queryTemplates.select(CustomDynamicQueryTemplate.ORDER_ITEMS_OF_ORDERS, dialect, null,
+                            CustomDynamicNameSearchIndex.Candidates.exactly(ids), null, null)),
+                    OrderItem::getOrderId);
+            Map<Long, List<Payment>> payments = groupByOrderId(selectByOrderIds(orderIds,
+                    ids -> queryTemplates.select(CustomDynamicQueryTemplate.PAYMENTS_OF_ORDERS, dialect, null,
+                            CustomDynamicNameSearchIndex.Candidates.exactly(ids), null, null)),
+                    Payment::getOrderId);
+            Map<Long, List<ReturnEntry>> returns = groupByOrderId(selectByOrderIds(orderIds,
+                    ids -> queryTemplates.select(CustomDynamicQueryTemplate.RETURNS_OF_ORDERS, dialect, null,
+                            CustomDynamicNameSearchIndex.Candidates.exactly(ids), null, null)),
+                    ReturnEntry::getOrderId);
+            List<CustomDynamicOrderGraph> graphs = new ArrayList<>(orders.records().size());
+            for (OrderEntity order : orders.records()) {
+                graphs.add(new CustomDynamicOrderGraph(order,
+                        items.getOrDefault(order.getOrderId(), List.of()),
+                        payments.getOrDefault(order.getOrderId(), List.of()),
+                        returns.getOrDefault(order.getOrderId(), List.of())));
+            }
+            return new CustomDynamicPageResponse<>(graphs, orders.nextCursor(), orders.total());
         });
     }
 
-    public List<Payment> queryPayments(CustomDynamicPaymentQueryRequest request) {
-        return withConnection(request.connectionId(), () -> {
-            LambdaQueryWrapper<Payment> query = new LambdaQueryWrapper<>();
-            if (request.orderId() != null) {
-                query.eq(Payment::getOrderId, request.orderId());
-            }
-            if (notBlank(request.paymentMethod())) {
-                query.eq(Payment::getPaymentMethod, request.paymentMethod());
-            }
-            if (notBlank(request.paymentStatus())) {
-                query.eq(Payment::getPaymentStatus, request.paymentStatus());
-            }
-            if (request.paidAfter() != null) {
-                query.ge(Payment::getPaidAt, request.paidAfter());
-            }
-            if (request.paidBefore() != null) {
-                query.le(Payment::getPaidAt, request.paidBefore());
-            }
-            Page<Payment> page = new Page<>(1, limitOrDefault(request.limit()));
-            return paymentMapper.selectPage(page, query).getRecords();
+    public CustomDynamicPageResponse<OrderItem> queryOrderItems(CustomDynamicOrderItemQueryRequest request) {
+        CustomDynamicKeysetCursor cursor = CustomDynamicKeysetCursor.decode(ORDER_ITEMS, request.cursor());
+        return cached(request.connectionId(), ORDER_ITEMS, request, () -> {
+            CustomDynamicPageResponse<OrderItem> page = page(request.connectionId(), CustomDynamicQueryTemplate.ORDER_ITEMS,
+                    request, cursor, request.limit(), request.totalMode(),
+                    row -> CustomDynamicKeysetCursor.encode(ORDER_ITEMS, null, row.getOrderItemId()));
+            if (Boolean.TRUE.equals(request.enrich())) {
+                dimensionCache.enrichProducts(request.connectionId(), page.records(), OrderItem::getProductId, OrderItem::setProduct);
+            }
+            return page;
         });
     }
 
-    public List<ReturnEntry> queryReturns(CustomDynamicReturnQueryRequest request) {
-        return withConnection(request.connectionId(), () -> {
-            LambdaQueryWrapper<ReturnEntry> query = new LambdaQueryWrapper<>();
-            if (request.orderId() != null) {
-                query.eq(ReturnEntry::getOrderId, request.orderId());
-            }
-            if (request.productId() != null) {
-                query.eq(ReturnEntry::getProductId, request.productId());
-            }
-            if (notBlank(request.returnStatus())) {
-                query.eq(ReturnEntry::getReturnStatus, request.returnStatus());
-            }
-            if (request.requestedAfter() != null) {
-                query.ge(ReturnEntry::getRequestedAt, request.requestedAfter());
-            }
-            if (request.requestedBefore() != null) {
-                query.le(ReturnEntry::getRequestedAt, request.requestedBefore());
-            }
-            Page<ReturnEntry> page = new Page<>(1, limitOrDefault(request.limit()));
-            return returnEntryMapper.selectPage(page, query).getRecords();
+    public CustomDynamicPageResponse<Payment> queryPayments(CustomDynamicPaymentQueryRequest request) {
+        CustomDynamicKeysetCursor cursor = CustomDynamicKeysetCursor.decode(PAYMENTS, request.cursor());
+        return cached(request.connectionId(), PAYMENTS, request,
+                () -> page(request.connectionId(), CustomDynamicQueryTemplate.PAYMENTS, request, cursor, request.limit(), request.totalMode(),
+                        row -> CustomDynamicKeysetCursor.encode(PAYMENTS, null, row.getPaymentId())));
+    }
+
+    public CustomDynamicPageResponse<ReturnEntry> queryReturns(CustomDynamicReturnQueryRequest request) {
+        CustomDynamicKeysetCursor cursor = CustomDynamicKeysetCursor.decode(RETURNS, request.cursor());
+        return cached(request.connectionId(), RETURNS, request, () -> {
+            CustomDynamicPageResponse<ReturnEntry> page = page(request.connectionId(), CustomDynamicQueryTemplate.RETURNS,
+                    request, cursor, request.limit(), request.totalMode(),
+                    row -> CustomDynamicKeysetCursor.encode(RETURNS, row.getRequestedAt(), row.getReturnId()));
+            if (Boolean.TRUE.equals(request.enrich())) {
+                dimensionCache.enrichProducts(request.connectionId(), page.records(), ReturnEntry::getProductId, ReturnEntry::setProduct);
+            }
+            return page;
         });
     }
 
+    private CustomDynamicPageResponse<OrderEntity> orderPage(CustomDynamicOrderQueryRequest request,
+                                                             CustomDynamicKeysetCursor cursor) {
+        return page(request.connectionId(), CustomDynamicQueryTemplate.ORDERS, request, cursor, request.limit(), request.totalMode(),
+                row -> CustomDynamicKeysetCursor.encode(ORDERS, row.getCreatedAt(), row.getOrderId()));
+    }
+
+    private <R, T> CustomDynamicPageResponse<T> page(String connectionId,
+                                                     CustomDynamicQueryTemplate<R, T> template,
+                                                     R request,
+                                                     CustomDynamicKeysetCursor cursor,
+                                                     Integer requestedLimit,
+                                                     CustomDynamicTotalMode totalMode,
+                                                     Function<T, String> cursorOf) {
+        CustomDynamicSqlDialect dialect = registry.getDialect(connectionId);
+        int limit = limitOrDefault(requestedLimit);
+        List<T> rows = queryTemplates.select(template, dialect, request, null, cursor, pageOf(limit));
+        return toPage(rows, limit, cursorOf, total(connectionId, totalMode, template.getEntityClass(),
+                () -> queryTemplates.count(template, dialect, request, null)));
+    }
+
+    private <T> List<T> selectByOrderIds(List<Long> orderIds, Function<List<Long>, List<T>> query) {
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+        List<T> rows = new ArrayList<>();
+        for (int from = 0; from < orderIds.size(); from += CustomDynamicQueryTemplate.IN_LIMIT) {
+            rows.addAll(query.apply(orderIds.subList(from, Math.min(from + CustomDynamicQueryTemplate.IN_LIMIT, orderIds.size()))));
+        }
+        return rows;
+    }
+
+    private <T> Map<Long, List<T>> groupByOrderId(List<T> rows, Function<T, Long> orderIdOf) {
+        Map<Long, List<T>> grouped = new HashMap<>();
+        for (T row : rows) {
+            grouped.computeIfAbsent(orderIdOf.apply(row), orderId -> new ArrayList<>()).add(row);
+        }
+        return grouped;
+    }
+
+    private <T> CustomDynamicPageResponse<T> cached(String connectionId,
+                                                    String entity,
+                                                    Object request,
+                                                    Supplier<CustomDynamicPageResponse<T>> query) {
+        return queryMetrics.record(connectionId, entity,
+                () -> queryCache.get(connectionId, entity, request, () -> withConnection(connectionId, query)));
+    }
+
+    // Cache hits never get here, so only queries that reach the database take a bulkhead slot. With the cache enabled
+    // the slot was already taken by the cache before its load, and the nested call runs on it.
     private <T> T withConnection(String connectionId, Supplier<T> supplier) {
-        registry.ensureExists(connectionId);
+        if (connectionId.equals(CustomDynamicDataSourceContext.getCurrentKey())) {
+            // already validated and routed by the caller, e.g. a batch worker
+            return bulkheads.call(connectionId, supplier);
+        }
         registry.touch(connectionId);
-        CustomDynamicDataSourceContext.setCurrentKey(connectionId);
-        try {
-            return supplier.get();
-        } finally {
-            CustomDynamicDataSourceContext.clear();
+        return bulkheads.call(connectionId, () -> CustomDynamicDataSourceContext.callWith(connectionId, supplier));
+    }
+
+    // Pages never run PaginationInnerInterceptor's COUNT(*); totals are computed separately on request.
+    private <T> IPage<T> pageOf(int limit) {
+        return new Page<>(1, limit + 1L, false);
+    }
+
+    private Long total(String connectionId, CustomDynamicTotalMode totalMode, Class<?> entityClass, Supplier<Long> exactCount) {
+        if (totalMode == null) {
+            return null;
         }
+        return switch (totalMode) {
+            case NONE -> null;
+            case EXACT -> exactCount.get();
+            case ESTIMATED -> totalEstimator.estimate(connectionId, entityClass);
+        };
     }
 
-    private int limitOrDefault(Integer limit) {
-        return limit == null ? DEFAULT_LIMIT : limit;
+    // Fetches are issued with limit + 1 rows; the extra row only signals that another page exists.
+    private <T> CustomDynamicPageResponse<T> toPage(List<T> rows, int limit, Function<T, String> cursorOf, Long total) {
+        if (rows.size() <= limit) {
+            return new CustomDynamicPageResponse<>(rows, null, total);
+        }
+        List<T> page = new ArrayList<>(rows.subList(0, limit));
+        return new CustomDynamicPageResponse<>(page, cursorOf.apply(page.get(limit - 1)), total);
     }
 
-    private boolean notBlank(String value) {
-        return value != null && !value.isBlank();
+    private int limitOrDefault(Integer limit) {
+        return limit == null ? DEFAULT_LIMIT : limit;
     }
 }
@@ -0,0 +1,201 @@
+package com.demo.todolist.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.demo.todolist.config.CustomDynamicQueryProperties;
+import com.demo.todolist.customdynamic.event.CustomDynamicConnectionClosedEvent;
+import com.demo.todolist.dto.CustomDynamicProductSummary;
+import com.demo.todolist.entity.Category;
+import com.demo.todolist.entity.Product;
+import com.demo.todolist.mapper.CategoryMapper;
+import com.demo.todolist.mapper.ProductMapper;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+// Categories and products per connection, held in memory so result rows can be enriched without a join or a
+// lookup per row. New rows are picked up by watermark; a periodic full reload catches updates and deletes.
+@Service
+public class CustomDynamicDimensionCache {
+
+    // A page that references an unknown product may trigger an early refresh, but not more often than this.
+    private static final Duration MIN_FORCED_REFRESH = Duration.ofSeconds(1);
+
+    private final CategoryMapper categoryMapper;
+    private final ProductMapper productMapper;
+    private final CustomDynamicQueryProperties.Dimensions settings;
+    private final Map<String, Dimensions> dimensions = new ConcurrentHashMap<>();
+
+    public CustomDynamicDimensionCache(CategoryMapper categoryMapper,
+                                       ProductMapper productMapper,
+                                       CustomDynamicQueryProperties properties) {
+        this.categoryMapper = categoryMapper;
+        this.productMapper = productMapper;
+        this.settings = properties.getDimensions();
+    }
+
+    // Must run with the connection's routing key already set.
+    public <T> void enrichProducts(String connectionId,
+                                   List<T> rows,
+                                   Function<T, Long> productIdOf,
+                                   BiConsumer<T, CustomDynamicProductSummary> setProduct) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Dimensions connectionDimensions = dimensions.computeIfAbsent(connectionId, id -> new Dimensions());
+        Snapshot snapshot = connectionDimensions.current(false);
+        boolean missing = false;
+        for (T row : rows) {
+            Long productId = productIdOf.apply(row);
+            if (productId != null && !snapshot.summaries().containsKey(productId)) {
+                missing = true;
+                break;
+            }
+        }
+        if (missing) {
+            snapshot = connectionDimensions.current(true);
+        }
+        for (T row : rows) {
+            Long productId = productIdOf.apply(row);
+            if (productId != null) {
+                setProduct.accept(row, snapshot.summaries().get(productId));
+            }
+        }
+    }
+
+    @EventListener
+    public void onConnectionClosed(CustomDynamicConnectionClosedEvent event) {
+        dimensions.remove(event.connectionId());
+    }
+
+    private Snapshot fullLoad(Instant now) {
+        Map<Long, Category> categories = new HashMap<>();
+        for (Category category : categoryMapper.selectList(null)) {
+            categories.put(category.getCategoryId(), category);
+        }
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productMapper.selectList(null)) {
+            products.put(product.getProductId(), product);
+        }
+        return snapshot(categories, products, now, now);
+    }
+
+    private Snapshot refresh(Snapshot previous, Instant now) {
+        List<Category> newCategories = categoryMapper.selectList(new LambdaQueryWrapper<Category>()
+                .gt(Category::getCategoryId, previous.maxCategoryId()));
+        LambdaQueryWrapper<Product> productQuery = new LambdaQueryWrapper<Product>()
+                .gt(Product::getProductId, previous.maxProductId());
+        if (previous.maxCreatedAt() != null) {
+            productQuery.or().gt(Product::getCreatedAt, previous.maxCreatedAt());
+        }
+        List<Product> newProducts = productMapper.selectList(productQuery);
+        if (newCategories.isEmpty() && newProducts.isEmpty()) {
+            return previous.refreshedAt(now);
+        }
+        Map<Long, Category> categories = new HashMap<>(previous.categories());
+        for (Category category : newCategories) {
+            categories.put(category.getCategoryId(), category);
+        }
+        Map<Long, Product> products = new HashMap<>(previous.products());
+        for (Product product : newProducts) {
+            products.put(product.getProductId(), product);
+        }
+        return snapshot(categories, products, previous.loadedAt(), now);
+    }
+
+    private static Snapshot snapshot(Map<Long, Category> categories,
+                                     Map<Long, Product> products,
+                                     Instant loadedAt,
+                                     Instant refreshedAt) {
+        long maxCategoryId = 0;
+        for (Long categoryId : categories.keySet()) {
+            maxCategoryId = Math.max(maxCategoryId, categoryId);
+        }
+        long maxProductId = 0;
+        OffsetDateTime maxCreatedAt = null;
+        Map<Long, CustomDynamicProductSummary> summaries = new HashMap<>(products.size() * 2);
+        for (Product product : products.values()) {
+            maxProductId = Math.max(maxProductId, product.getProductId());
+            if (product.getCreatedAt() != null && (maxCreatedAt == null || product.getCreatedAt().isAfter(maxCreatedAt))) {
+                maxCreatedAt = product.getCreatedAt();
+            }
+            Category category = product.getCategoryId() == null ? null : categories.get(product.getCategoryId());
+            summaries.put(product.getProductId(), new CustomDynamicProductSummary(
+                    product.getProductId(),
+                    product.getSku(),
+                    product.getProductName(),
+                    product.getListPrice(),
+                    product.getIsActive(),
+                    product.getCategoryId(),
+                    category == null ? null : category.getCategoryName()));
+        }
+        return new Snapshot(Map.copyOf(categories), Map.copyOf(products), Map.copyOf(summaries),
+                maxCategoryId, maxProductId, maxCreatedAt, loadedAt, refreshedAt);
+    }
+
+    private final class Dimensions {
+        // ReentrantLock rather than synchronized so a loading virtual thread does not pin its carrier
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile Snapshot snapshot;
+
+        Snapshot current(boolean force) {
+            Snapshot current = snapshot;
+            if (current == null) {
+                lock.lock();
+                try {
+                    if (snapshot == null) {
+                        snapshot = fullLoad(Instant.now());
+                    }
+                    return snapshot;
+                } finally {
+                    lock.unlock();
+                }
+            }
+            Instant now = Instant.now();
+            if (!isStale(current, now, force)) {
+                return current;
+            }
+            // One caller refreshes; the others keep reading the previous snapshot meanwhile.
+            if (lock.tryLock()) {
+                try {
+                    if (snapshot == current) {
+                        snapshot = now.isAfter(current.loadedAt().plus(settings.getFullReloadInterval()))
+                                ? fullLoad(now)
+                                : refresh(current, now);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return snapshot;
+        }
+
+        private boolean isStale(Snapshot current, Instant now, boolean force) {
+            Duration interval = force ? MIN_FORCED_REFRESH : settings.getRefreshInterval();
+            return now.isAfter(current.refreshedAt().plus(interval));
+        }
+    }
+
+    private record Snapshot(Map<Long, Category> categories,
+                            Map<Long, Product> products,
+                            Map<Long, CustomDynamicProductSummary> summaries,
+                            long maxCategoryId,
+                            long maxProductId,
+                            OffsetDateTime maxCreatedAt,
+                            Instant loadedAt,
+                            Instant refreshedAt) {
+
+        Snapshot refreshedAt(Instant now) {
+            return new Snapshot(categories, products, summaries, maxCategoryId, maxProductId, maxCreatedAt, loadedAt, now);
+        }
+    }
+}
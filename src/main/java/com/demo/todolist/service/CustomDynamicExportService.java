@@ -0,0 +1,186 @@
+package com.demo.todolist.service;
+
+import com.demo.todolist.config.CustomDynamicFetchSizeInterceptor;
+import com.demo.todolist.customdynamic.config.CustomDynamicDataSourceContext;
+import com.demo.todolist.customdynamic.dialect.CustomDynamicSqlDialect;
+import com.demo.todolist.customdynamic.service.CustomDynamicDataSourceRegistry;
+import com.demo.todolist.dto.CustomDynamicCategoryQueryRequest;
+import com.demo.todolist.dto.CustomDynamicCustomerQueryRequest;
+import com.demo.todolist.dto.CustomDynamicExportFormat;
+import com.demo.todolist.dto.CustomDynamicInventoryMovementQueryRequest;
+import com.demo.todolist.dto.CustomDynamicOrderItemQueryRequest;
+import com.demo.todolist.dto.CustomDynamicOrderQueryRequest;
+import com.demo.todolist.dto.CustomDynamicPaymentQueryRequest;
+import com.demo.todolist.dto.CustomDynamicProductQueryRequest;
+import com.demo.todolist.dto.CustomDynamicReturnQueryRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+@Service
+public class CustomDynamicExportService {
+
+    // Keep the connection alive for exports that outlast the registry TTL.
+    private static final int TOUCH_EVERY_ROWS = 10_000;
+
+    private final CustomDynamicDataSourceRegistry registry;
+    private final CustomDynamicQueryTemplates queryTemplates;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final CustomDynamicBulkheads bulkheads;
+
+    public CustomDynamicExportService(CustomDynamicDataSourceRegistry registry,
+                                      CustomDynamicQueryTemplates queryTemplates,
+                                      ObjectMapper objectMapper,
+                                      PlatformTransactionManager transactionManager,
+                                      CustomDynamicBulkheads bulkheads) {
+        this.registry = registry;
+        this.queryTemplates = queryTemplates;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // PostgreSQL only honours the fetch size when autocommit is off
+        this.transactionTemplate.setReadOnly(true);
+        this.bulkheads = bulkheads;
+    }
+
+    public StreamingResponseBody exportCustomers(CustomDynamicCustomerQueryRequest request, CustomDynamicExportFormat format) {
+        return export(request.connectionId(), format, CustomDynamicQueryTemplate.CUSTOMERS, request);
+    }
+
+    public StreamingResponseBody exportCategories(CustomDynamicCategoryQueryRequest request, CustomDynamicExportFormat format) {
+        return export(request.connectionId(), format, CustomDynamicQueryTemplate.CATEGORIES, request);
+    }
+
+    public StreamingResponseBody exportProducts(CustomDynamicProductQueryRequest request, CustomDynamicExportFormat format) {
+        return export(request.connectionId(), format, CustomDynamicQueryTemplate.PRODUCTS, request);
+    }
+
+    public StreamingResponseBody exportInventoryMovements(CustomDynamicInventoryMovementQueryRequest request, CustomDynamicExportFormat format) {
+        return export(request.connectionId(), format, CustomDynamicQueryTemplate.INVENTORY_MOVEMENTS, request);
+    }
+
+    public StreamingResponseBody exportOrders(CustomDynamicOrderQueryRequest request, CustomDynamicExportFormat format) {
+        return export(request.connectionId(), format, CustomDynamicQueryTemplate.ORDERS, request);
+    }
+
+    public StreamingResponseBody exportOrderItems(CustomDynamicOrderItemQueryRequest request, CustomDynamicExportFormat format) {
+        return export(request.connectionId(), format, CustomDynamicQueryTemplate.ORDER_ITEMS, request);
+    }
+
+    public StreamingResponseBody exportPayments(CustomDynamicPaymentQueryRequest request, CustomDynamicExportFormat format) {
+        return export(request.connectionId(), format, CustomDynamicQueryTemplate.PAYMENTS, request);
+    }
+
+    public StreamingResponseBody exportReturns(CustomDynamicReturnQueryRequest request, CustomDynamicExportFormat format) {
+        return export(request.connectionId(), format, CustomDynamicQueryTemplate.RETURNS, request);
+    }
+
+    private <R, T> StreamingResponseBody export(String connectionId,
+                                                CustomDynamicExportFormat format,
+                                                CustomDynamicQueryTemplate<R, T> template,
+                                                R request) {
+        // Fail with 404 before the response is committed
+        registry.touch(connectionId);
+        CustomDynamicSqlDialect dialect = registry.getDialect(connectionId);
+        int fetchSize = dialect.getStreamingFetchSize();
+
+        return outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            RowWriter rowWriter = format == CustomDynamicExportFormat.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+            // The slot is held for the whole stream, like the pool connection it guards.
+            bulkheads.run(connectionId, () -> CustomDynamicDataSourceContext.runWith(connectionId, () ->
+                    CustomDynamicFetchSizeInterceptor.runWithFetchSize(fetchSize, () ->
+                            transactionTemplate.executeWithoutResult(status -> queryTemplates.select(template, dialect, request, context -> {
+                                // An IOException here means the client went away; rethrowing aborts the
+                                // statement and MyBatis closes the result set.
+                                rowWriter.write(context.getResultObject());
+                                if (context.getResultCount() % TOUCH_EVERY_ROWS == 0) {
+                                    registry.touch(connectionId);
+                                }
+                            })))));
+            writer.flush();
+        };
+    }
+
+    private abstract static class RowWriter {
+        protected final Writer writer;
+
+        RowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        void write(Object row) {
+            try {
+                writeRow(row);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        abstract void writeRow(Object row) throws IOException;
+    }
+
+    private class NdjsonRowWriter extends RowWriter {
+        NdjsonRowWriter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        void writeRow(Object row) throws IOException {
+            writer.write(objectMapper.writeValueAsString(row));
+            writer.write('\n');
+        }
+    }
+
+    private class CsvRowWriter extends RowWriter {
+        private List<String> columns;
+
+        CsvRowWriter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        void writeRow(Object row) throws IOException {
+            JsonNode node = objectMapper.valueToTree(row);
+            if (columns == null) {
+                columns = new ArrayList<>();
+                Iterator<String> names = node.fieldNames();
+                while (names.hasNext()) {
+                    columns.add(names.next());
+                }
+                writeLine(columns.stream().map(this::escape).toList());
+            }
+            List<String> values = new ArrayList<>(columns.size());
+            for (String column : columns) {
+                JsonNode value = node.get(column);
+                values.add(value == null || value.isNull() ? "" : escape(value.asText()));
+            }
+            writeLine(values);
+        }
+
+        private void writeLine(List<String> values) throws IOException {
+            writer.write(String.join(",", values));
+            writer.write("\r\n");
+        }
+
+        private String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
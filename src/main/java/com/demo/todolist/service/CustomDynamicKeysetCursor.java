@@ -0,0 +1,38 @@
+package com.demo.todolist.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+
+// The entity name is part of the token so a cursor from /orders cannot be replayed against /payments.
+public record CustomDynamicKeysetCursor(String entity, OffsetDateTime sortValue, long id) {
+
+    private static final String VERSION = "v1";
+    private static final String SEPARATOR = "|";
+
+    public static String encode(String entity, OffsetDateTime sortValue, Long id) {
+        String raw = VERSION + SEPARATOR + entity + SEPARATOR
+                + (sortValue == null ? "" : sortValue.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CustomDynamicKeysetCursor decode(String entity, String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 4 || !VERSION.equals(parts[0]) || !entity.equals(parts[1])) {
+                throw new IllegalArgumentException("cursor does not belong to " + entity);
+            }
+            OffsetDateTime sortValue = parts[2].isEmpty() ? null : OffsetDateTime.parse(parts[2]);
+            return new CustomDynamicKeysetCursor(entity, sortValue, Long.parseLong(parts[3]));
+        } catch (RuntimeException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid cursor", ex);
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.demo.todolist.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.demo.todolist.config.CustomDynamicFetchSizeInterceptor;
+import com.demo.todolist.config.CustomDynamicQueryProperties;
+import com.demo.todolist.customdynamic.dialect.CustomDynamicSqlDialect;
+import com.demo.todolist.customdynamic.event.CustomDynamicConnectionClosedEvent;
+import com.demo.todolist.customdynamic.service.CustomDynamicDataSourceRegistry;
+import com.demo.todolist.entity.Customer;
+import com.demo.todolist.entity.Product;
+import com.demo.todolist.mapper.CustomerMapper;
+import com.demo.todolist.mapper.ProductMapper;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// Trigram inverted index over customer and product names per connection. A substring filter becomes a set of
+// candidate primary keys; the query keeps its LIKE, so the database still verifies every candidate and the index
+// only has to be a superset. Rows inserted after the last refresh are covered by also accepting every id above the
+// index watermark less the late-commit window, and each refresh re-reads that window, so a row whose id was allocated
+// before a higher one but committed after it is indexed on the next refresh and accepted until then. Terms shorter
+// than a trigram or too many candidates fall back to the plain LIKE, and so does MySQL, whose default collations
+// match LIKE without regard to accents. A row renamed since the last full rebuild is still only found under its old
+// name, and so is a row committed later than the window allows for; full-reload-interval bounds both.
+@Service
+public class CustomDynamicNameSearchIndex {
+
+    private static final int GRAM = 3;
+    private static final long[] NO_CANDIDATES = new long[0];
+    // field 0 is the name column, field 1 the code column (email or sku)
+    private static final int NAME = 0;
+    private static final int CODE = 1;
+
+    private final CustomDynamicDataSourceRegistry registry;
+    private final CustomerMapper customerMapper;
+    private final ProductMapper productMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final CustomDynamicBulkheads bulkheads;
+    private final CustomDynamicQueryProperties.Search settings;
+    private final Map<IndexKey, TableIndex> indexes = new ConcurrentHashMap<>();
+
+    public CustomDynamicNameSearchIndex(CustomDynamicDataSourceRegistry registry,
+                                        CustomerMapper customerMapper,
+                                        ProductMapper productMapper,
+                                        PlatformTransactionManager transactionManager,
+                                        CustomDynamicBulkheads bulkheads,
+                                        CustomDynamicQueryProperties properties) {
+        this.registry = registry;
+        this.customerMapper = customerMapper;
+        this.productMapper = productMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // PostgreSQL only honours the fetch size when autocommit is off
+        this.transactionTemplate.setReadOnly(true);
+        this.bulkheads = bulkheads;
+        this.settings = properties.getSearch();
+    }
+
+    // Candidate customer_ids for full_name LIKE and keyword (full_name or email) filters, or null when the index
+    // cannot narrow the query. Must run with the connection's routing key already set.
+    public Candidates customerCandidates(String connectionId, String fullName, String keyword) {
+        return candidates(connectionId, Table.CUSTOMERS, fullName, keyword);
+    }
+
+    // Same for product_name LIKE and keyword (product_name or sku) filters.
+    public Candidates productCandidates(String connectionId, String productName, String keyword) {
+        return candidates(connectionId, Table.PRODUCTS, productName, keyword);
+    }
+
+    @EventListener
+    public void onConnectionClosed(CustomDynamicConnectionClosedEvent event) {
+        indexes.keySet().removeIf(key -> key.connectionId().equals(event.connectionId()));
+    }
+
+    private Candidates candidates(String connectionId, Table table, String name, String keyword) {
+        if (!settings.isEnabled() || (!searchable(name) && !searchable(keyword))
+                || registry.getDialect(connectionId) == CustomDynamicSqlDialect.MYSQL) {
+            return null;
+        }
+        TableIndex index = indexes.computeIfAbsent(new IndexKey(connectionId, table), key -> new TableIndex(key));
+        index.refreshIfStale();
+        index.lock.readLock().lock();
+        try {
+            Trigrams trigrams = index.trigrams;
+            long[] byName = searchable(name) ? trigrams.search(NAME, name, settings.getMaxCandidates()) : null;
+            long[] byKeyword = null;
+            if (searchable(keyword)) {
+                long[] keywordNames = trigrams.search(NAME, keyword, settings.getMaxCandidates());
+                long[] keywordCodes = trigrams.search(CODE, keyword, settings.getMaxCandidates());
+                byKeyword = keywordNames == null || keywordCodes == null ? null : union(keywordNames, keywordCodes);
+                if (byKeyword != null && byKeyword.length > settings.getMaxCandidates()) {
+                    byKeyword = null;
+                }
+            }
+            long[] ids = byName == null ? byKeyword : byKeyword == null ? byName : intersect(byName, byKeyword);
+            return ids == null ? null
+                    : new Candidates(Arrays.stream(ids).boxed().toList(), trigrams.indexedThrough(settings.getLateCommitWindow()));
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+
+    // Usually runs inside the slot of the commerce query that asked for candidates; the bulkhead lets that through.
+    private void stream(IndexKey key, long afterId, Consumer<IndexedRow> sink) {
+        int fetchSize = registry.getDialect(key.connectionId()).getStreamingFetchSize();
+        bulkheads.run(key.connectionId(), () -> CustomDynamicFetchSizeInterceptor.runWithFetchSize(fetchSize,
+                () -> transactionTemplate.executeWithoutResult(status -> select(key, afterId, sink))));
+    }
+
+    private void select(IndexKey key, long afterId, Consumer<IndexedRow> sink) {
+        if (key.table() == Table.CUSTOMERS) {
+            customerMapper.selectList(new LambdaQueryWrapper<Customer>()
+                    .select(Customer::getCustomerId, Customer::getFullName, Customer::getEmail)
+                    .gt(Customer::getCustomerId, afterId)
+                    .orderByAsc(Customer::getCustomerId), context -> {
+                Customer row = context.getResultObject();
+                sink.accept(new IndexedRow(row.getCustomerId(), row.getFullName(), row.getEmail()));
+            });
+        } else {
+            productMapper.selectList(new LambdaQueryWrapper<Product>()
+                    .select(Product::getProductId, Product::getProductName, Product::getSku)
+                    .gt(Product::getProductId, afterId)
+                    .orderByAsc(Product::getProductId), context -> {
+                Product row = context.getResultObject();
+                sink.accept(new IndexedRow(row.getProductId(), row.getProductName(), row.getSku()));
+            });
+        }
+    }
+
+    // LIKE wildcards in the term would match more than the literal trigrams, so those keep the plain LIKE.
+    private static boolean searchable(String term) {
+        return term != null && term.length() >= GRAM && term.indexOf('%') < 0 && term.indexOf('_') < 0;
+    }
+
+    private static long key(int field, String text, int offset) {
+        return ((long) field << 48) | ((long) text.charAt(offset) << 32) | ((long) text.charAt(offset + 1) << 16)
+                | text.charAt(offset + 2);
+    }
+
+    private static long[] union(long[] left, long[] right) {
+        long[] merged = new long[left.length + right.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < left.length || j < right.length) {
+            long next;
+            if (j == right.length || (i < left.length && left[i] <= right[j])) {
+                next = left[i++];
+            } else {
+                next = right[j++];
+            }
+            if (n == 0 || merged[n - 1] != next) {
+                merged[n++] = next;
+            }
+        }
+        return Arrays.copyOf(merged, n);
+    }
+
+    private static long[] intersect(long[] left, long[] right) {
+        long[] common = new long[Math.min(left.length, right.length)];
+        int n = 0;
+        for (long id : left) {
+            if (Arrays.binarySearch(right, id) >= 0) {
+                common[n++] = id;
+            }
+        }
+        return Arrays.copyOf(common, n);
+    }
+
+    // Matching ids among the indexed rows; rows with ids above indexedThrough may not be indexed yet and may match too.
+    public record Candidates(List<Long> ids, long indexedThrough) {
+
+        // A complete id list, such as the orders of a graph page; nothing above it is left unindexed.
+        public static Candidates exactly(List<Long> ids) {
+            return new Candidates(ids, Long.MAX_VALUE);
+        }
+    }
+
+    private enum Table {
+        CUSTOMERS,
+        PRODUCTS
+    }
+
+    private record IndexKey(String connectionId, Table table) {
+    }
+
+    private record IndexedRow(long id, String name, String code) {
+    }
+
+    private final class TableIndex {
+        private final IndexKey key;
+        // readers search under the read lock; appends and swaps take the write lock only after rows are fetched
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final ReentrantLock refreshLock = new ReentrantLock();
+        private volatile Trigrams trigrams;
+        private volatile Instant loadedAt;
+        private volatile Instant refreshedAt;
+
+        TableIndex(IndexKey key) {
+            this.key = key;
+        }
+
+        void refreshIfStale() {
+            if (trigrams == null) {
+                refreshLock.lock();
+                try {
+                    if (trigrams == null) {
+                        rebuild(Instant.now());
+                    }
+                } finally {
+                    refreshLock.unlock();
+                }
+                return;
+            }
+            Instant now = Instant.now();
+            if (now.isBefore(refreshedAt.plus(settings.getRefreshInterval()))) {
+                return;
+            }
+            // One caller refreshes; the others keep searching the current index meanwhile.
+            if (refreshLock.tryLock()) {
+                try {
+                    if (now.isAfter(loadedAt.plus(settings.getFullReloadInterval()))) {
+                        rebuild(now);
+                    } else {
+                        appendNewRows(now);
+                    }
+                } finally {
+                    refreshLock.unlock();
+                }
+            }
+        }
+
+        private void rebuild(Instant now) {
+            Trigrams rebuilt = new Trigrams();
+            stream(key, 0, rebuilt::add);
+            lock.writeLock().lock();
+            try {
+                trigrams = rebuilt;
+                loadedAt = now;
+                refreshedAt = now;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        // Re-reads the late-commit window below the watermark; rows already indexed are skipped by the postings.
+        private void appendNewRows(Instant now) {
+            List<IndexedRow> rows = new ArrayList<>();
+            stream(key, trigrams.indexedThrough(settings.getLateCommitWindow()), rows::add);
+            lock.writeLock().lock();
+            try {
+                for (IndexedRow row : rows) {
+                    trigrams.add(row);
+                }
+                refreshedAt = now;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private static final class Trigrams {
+        private final Map<Long, Postings> postings = new HashMap<>();
+        private long watermark;
+
+        // Rows mostly arrive in ascending id order, so posting lists usually stay sorted by appending.
+        void add(IndexedRow row) {
+            index(NAME, row.name(), row.id());
+            index(CODE, row.code(), row.id());
+            watermark = Math.max(watermark, row.id());
+        }
+
+        // Every row with an id up to here was seen by a refresh that re-read it after it had committed.
+        long indexedThrough(int lateCommitWindow) {
+            return Math.max(0, watermark - lateCommitWindow);
+        }
+
+        private void index(int field, String value, long id) {
+            if (value == null || value.length() < GRAM) {
+                return;
+            }
+            String text = value.toLowerCase(Locale.ROOT);
+            for (int i = 0; i + GRAM <= text.length(); i++) {
+                postings.computeIfAbsent(key(field, text, i), ignored -> new Postings()).add(id);
+            }
+        }
+
+        // Null when the candidates exceed max; the case-insensitive match is a superset of what LIKE accepts.
+        long[] search(int field, String term, int max) {
+            String text = term.toLowerCase(Locale.ROOT);
+            Set<Long> keys = new HashSet<>();
+            List<Postings> lists = new ArrayList<>();
+            for (int i = 0; i + GRAM <= text.length(); i++) {
+                long key = key(field, text, i);
+                if (keys.add(key)) {
+                    Postings list = postings.get(key);
+                    if (list == null) {
+                        return NO_CANDIDATES;
+                    }
+                    lists.add(list);
+                }
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+            Postings smallest = lists.get(0);
+            long[] result = Arrays.copyOf(smallest.ids, smallest.size);
+            int n = result.length;
+            for (int k = 1; k < lists.size() && n > 0; k++) {
+                Postings other = lists.get(k);
+                int kept = 0;
+                for (int i = 0; i < n; i++) {
+                    if (Arrays.binarySearch(other.ids, 0, other.size, result[i]) >= 0) {
+                        result[kept++] = result[i];
+                    }
+                }
+                n = kept;
+            }
+            return n > max ? null : Arrays.copyOf(result, n);
+        }
+    }
+
+    private static final class Postings {
+        private long[] ids = new long[4];
+        private int size;
+
+        // Ids from a re-read window may already be present or land below the tail; both keep the list sorted and unique.
+        void add(long id) {
+            int at = size;
+            if (size > 0 && ids[size - 1] >= id) {
+                int found = Arrays.binarySearch(ids, 0, size, id);
+                if (found >= 0) {
+                    return;
+                }
+                at = -found - 1;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,500 @@
+package com.demo.todolist.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.demo.todolist.config.CustomDynamicQueryProperties;
+import com.demo.todolist.customdynamic.config.CustomDynamicDataSourceContext;
+import com.demo.todolist.customdynamic.event.CustomDynamicConnectionClosedEvent;
+import com.demo.todolist.customdynamic.service.CustomDynamicDataSourceRegistry;
+import com.demo.todolist.dto.CustomDynamicOrderSnapshotQueryRequest;
+import com.demo.todolist.dto.CustomDynamicOrderSnapshotResponse;
+import com.demo.todolist.dto.CustomDynamicOrderSnapshotRow;
+import com.demo.todolist.dto.CustomDynamicSnapshotGroup;
+import com.demo.todolist.entity.OrderEntity;
+import com.demo.todolist.entity.OrderItem;
+import com.demo.todolist.mapper.OrderEntityMapper;
+import com.demo.todolist.mapper.OrderItemMapper;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.stream.IntStream;
+
+// Orders and order items per connection as primitive column arrays: ids and epoch millis as long, money as long
+// cents, status/channel/currency as short dictionary codes. Aggregates are plain loops over those arrays, split
+// across the common fork/join pool for large snapshots, and allocate nothing per row. Refreshes append orders above
+// the settled id, re-reading a late-commit window below the watermark so an order that commits after a higher id
+// was loaded is still picked up; anything later than the window allows for waits for the next full reload.
+@Service
+public class CustomDynamicOrderSnapshotService {
+
+    // Below this many rows a sequential loop beats the fork/join overhead.
+    private static final int PARALLEL_THRESHOLD = 32_768;
+    private static final int MONEY_SCALE = 2;
+    private static final String ALL = "all";
+
+    private final CustomDynamicDataSourceRegistry registry;
+    private final OrderEntityMapper orderEntityMapper;
+    private final OrderItemMapper orderItemMapper;
+    private final CustomDynamicQueryProperties.Snapshot settings;
+    private final CustomDynamicBulkheads bulkheads;
+    private final Map<String, Holder> holders = new ConcurrentHashMap<>();
+
+    public CustomDynamicOrderSnapshotService(CustomDynamicDataSourceRegistry registry,
+                                             OrderEntityMapper orderEntityMapper,
+                                             OrderItemMapper orderItemMapper,
+                                             CustomDynamicQueryProperties properties,
+                                             CustomDynamicBulkheads bulkheads) {
+        this.registry = registry;
+        this.orderEntityMapper = orderEntityMapper;
+        this.orderItemMapper = orderItemMapper;
+        this.settings = properties.getSnapshot();
+        this.bulkheads = bulkheads;
+    }
+
+    public CustomDynamicOrderSnapshotResponse query(CustomDynamicOrderSnapshotQueryRequest request) {
+        if (!settings.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "order snapshot is disabled");
+        }
+        String connectionId = request.connectionId();
+        registry.touch(connectionId);
+        Holder holder = holders.computeIfAbsent(connectionId, Holder::new);
+        Columns columns = CustomDynamicDataSourceContext.callWith(connectionId, holder::current);
+
+        long startedAt = System.nanoTime();
+        CustomDynamicSnapshotGroup group = request.groupBy() == null ? CustomDynamicSnapshotGroup.NONE : request.groupBy();
+        short[] groupCodes = switch (group) {
+            case NONE -> null;
+            case STATUS -> columns.statusCodes;
+            case CHANNEL -> columns.channelCodes;
+            case CURRENCY -> columns.currencyCodes;
+        };
+        List<String> groupNames = switch (group) {
+            case NONE -> List.of(ALL);
+            case STATUS -> columns.statuses;
+            case CHANNEL -> columns.channels;
+            case CURRENCY -> columns.currencies;
+        };
+        OrderFilter filter = new OrderFilter(columns, request);
+        Totals totals = filter.matchesNothing
+                ? new Totals(groupNames.size())
+                : aggregate(columns, filter, groupCodes, groupNames.size());
+
+        List<CustomDynamicOrderSnapshotRow> rows = new ArrayList<>();
+        for (int g = 0; g < groupNames.size(); g++) {
+            if (totals.orders[g] == 0 && group != CustomDynamicSnapshotGroup.NONE) {
+                continue;
+            }
+            long net = totals.grossCents[g] - totals.itemDiscountCents[g] - totals.orderDiscountCents[g] + totals.shippingCents[g];
+            rows.add(new CustomDynamicOrderSnapshotRow(groupNames.get(g), totals.orders[g], totals.units[g],
+                    money(totals.grossCents[g]), money(totals.itemDiscountCents[g]), money(totals.orderDiscountCents[g]),
+                    money(totals.shippingCents[g]), money(net)));
+        }
+        rows.sort(Comparator.comparing(CustomDynamicOrderSnapshotRow::group));
+        long elapsedMicros = (System.nanoTime() - startedAt) / 1_000;
+        return new CustomDynamicOrderSnapshotResponse(rows, columns.watermark, columns.orderCount, columns.itemCount,
+                columns.bytes(), columns.refreshedAt, elapsedMicros);
+    }
+
+    @EventListener
+    public void onConnectionClosed(CustomDynamicConnectionClosedEvent event) {
+        holders.remove(event.connectionId());
+    }
+
+    private Totals aggregate(Columns columns, OrderFilter filter, short[] groupCodes, int groupCount) {
+        Totals orders = scan(columns.orderCount, groupCount, (from, to) -> {
+            Totals totals = new Totals(groupCount);
+            for (int i = from; i < to; i++) {
+                if (filter.matches(i)) {
+                    int g = groupCodes == null ? 0 : groupCodes[i];
+                    totals.orders[g]++;
+                    totals.orderDiscountCents[g] += columns.discountCents[i];
+                    totals.shippingCents[g] += columns.shippingCents[i];
+                }
+            }
+            return totals;
+        });
+        Totals items = scan(columns.itemCount, groupCount, (from, to) -> {
+            Totals totals = new Totals(groupCount);
+            for (int j = from; j < to; j++) {
+                int i = columns.itemOrderIndex[j];
+                if (filter.matches(i)) {
+                    int g = groupCodes == null ? 0 : groupCodes[i];
+                    totals.units[g] += columns.qty[j];
+                    totals.grossCents[g] += columns.qty[j] * columns.unitPriceCents[j];
+                    totals.itemDiscountCents[g] += columns.itemDiscountCents[j];
+                }
+            }
+            return totals;
+        });
+        return orders.add(items);
+    }
+
+    private Totals scan(int size, int groupCount, BiFunction<Integer, Integer, Totals> range) {
+        if (size < PARALLEL_THRESHOLD) {
+            return range.apply(0, size);
+        }
+        int chunks = ForkJoinPool.getCommonPoolParallelism() * 4;
+        int chunkSize = (size + chunks - 1) / chunks;
+        return IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(chunk -> range.apply(Math.min(size, chunk * chunkSize), Math.min(size, (chunk + 1) * chunkSize)))
+                .reduce(Totals::add)
+                .orElseGet(() -> new Totals(groupCount));
+    }
+
+    // Orders are appended page by page in order_id order, each page followed by the items of exactly the orders it
+    // added; orders already loaded from the re-read window are skipped. Both queries of a page run before anything is
+    // appended, so a failed query leaves the builder at the previous page.
+    private void appendNewOrders(Builder builder) {
+        int batchSize = settings.getLoadBatchSize();
+        long after = builder.settled;
+        List<OrderEntity> orders;
+        do {
+            LambdaQueryWrapper<OrderEntity> orderQuery = new LambdaQueryWrapper<OrderEntity>()
+                    .select(OrderEntity::getOrderId, OrderEntity::getCustomerId, OrderEntity::getOrderStatus,
+                            OrderEntity::getOrderChannel, OrderEntity::getCurrency, OrderEntity::getDiscountAmt,
+                            OrderEntity::getShippingFee, OrderEntity::getCreatedAt)
+                    .gt(OrderEntity::getOrderId, after)
+                    .orderByAsc(OrderEntity::getOrderId);
+            orders = orderEntityMapper.selectPage(new Page<>(1, batchSize, false), orderQuery).getRecords();
+            if (orders.isEmpty()) {
+                break;
+            }
+            long firstId = orders.get(0).getOrderId();
+            long lastId = orders.get(orders.size() - 1).getOrderId();
+            List<OrderItem> items = orderItemMapper.selectList(new LambdaQueryWrapper<OrderItem>()
+                    .select(OrderItem::getOrderId, OrderItem::getProductId, OrderItem::getQty,
+                            OrderItem::getUnitPrice, OrderItem::getItemDiscount)
+                    .ge(OrderItem::getOrderId, firstId)
+                    .le(OrderItem::getOrderId, lastId));
+            int firstIndex = builder.orderCount;
+            for (OrderEntity order : orders) {
+                if (builder.loadedIds.add(order.getOrderId())) {
+                    builder.appendOrder(order);
+                }
+            }
+            for (OrderItem item : items) {
+                int orderIndex = Arrays.binarySearch(builder.orderIds, firstIndex, builder.orderCount, item.getOrderId());
+                if (orderIndex >= 0) {
+                    builder.appendItem(item, orderIndex);
+                }
+            }
+            after = lastId;
+            builder.watermark = Math.max(builder.watermark, lastId);
+            // ids below the window are no longer re-read, so they need not be remembered
+            long settled = Math.max(builder.settled, builder.watermark - settings.getLateCommitWindow());
+            builder.loadedIds.removeIf(id -> id <= settled);
+            builder.settled = settled;
+        } while (orders.size() == batchSize);
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(MONEY_SCALE).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static BigDecimal money(long cents) {
+        return BigDecimal.valueOf(cents, MONEY_SCALE);
+    }
+
+    private final class Holder {
+        private final String connectionId;
+        // ReentrantLock rather than synchronized so a loading virtual thread does not pin its carrier
+        private final ReentrantLock lock = new ReentrantLock();
+        // Only touched while holding the lock; published columns never see later appends.
+        private Builder builder;
+        private volatile Columns columns;
+
+        Holder(String connectionId) {
+            this.connectionId = connectionId;
+        }
+
+        Columns current() {
+            Columns current = columns;
+            if (current == null) {
+                lock.lock();
+                try {
+                    if (columns == null) {
+                        Instant now = Instant.now();
+                        builder = new Builder();
+                        load(builder);
+                        columns = builder.publish(now, now);
+                    }
+                    return columns;
+                } finally {
+                    lock.unlock();
+                }
+            }
+            Instant now = Instant.now();
+            if (now.isBefore(current.refreshedAt.plus(settings.getRefreshInterval()))) {
+                return current;
+            }
+            // One caller refreshes; the others keep aggregating over the previous columns meanwhile.
+            if (lock.tryLock()) {
+                try {
+                    if (columns == current) {
+                        if (builder == null || now.isAfter(current.loadedAt.plus(settings.getFullReloadInterval()))) {
+                            builder = new Builder();
+                            load(builder);
+                            columns = builder.publish(now, now);
+                        } else {
+                            load(builder);
+                            columns = builder.publish(current.loadedAt, now);
+                        }
+                    }
+                } catch (RuntimeException ex) {
+                    // A failed append may have left part of a page in the builder; rebuild instead of appending to it.
+                    builder = null;
+                    throw ex;
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return columns;
+        }
+
+        // Only loads take a bulkhead slot; aggregating over published columns never reaches the database.
+        private void load(Builder target) {
+            bulkheads.run(connectionId, () -> appendNewOrders(target));
+        }
+    }
+
+    // Appends into arrays that grow by doubling. Published Columns share the arrays but only read below the
+    // size they were published with, so appends past that size never race with readers.
+    private static final class Builder {
+        private long watermark;
+        // Order ids above settled that are already appended; refreshes re-read from settled and skip these.
+        private long settled;
+        private final Set<Long> loadedIds = new HashSet<>();
+        private int orderCount;
+        private long[] orderIds = new long[1024];
+        private long[] customerIds = new long[1024];
+        private long[] createdAtMillis = new long[1024];
+        private short[] statusCodes = new short[1024];
+        private short[] channelCodes = new short[1024];
+        private short[] currencyCodes = new short[1024];
+        private long[] discountCents = new long[1024];
+        private long[] shippingCents = new long[1024];
+        private int itemCount;
+        private int[] itemOrderIndex = new int[4096];
+        private long[] productIds = new long[4096];
+        private int[] qty = new int[4096];
+        private long[] unitPriceCents = new long[4096];
+        private long[] itemDiscountCents = new long[4096];
+        private final Dictionary statuses = new Dictionary();
+        private final Dictionary channels = new Dictionary();
+        private final Dictionary currencies = new Dictionary();
+
+        void appendOrder(OrderEntity order) {
+            if (orderCount == orderIds.length) {
+                int capacity = orderCount * 2;
+                orderIds = Arrays.copyOf(orderIds, capacity);
+                customerIds = Arrays.copyOf(customerIds, capacity);
+                createdAtMillis = Arrays.copyOf(createdAtMillis, capacity);
+                statusCodes = Arrays.copyOf(statusCodes, capacity);
+                channelCodes = Arrays.copyOf(channelCodes, capacity);
+                currencyCodes = Arrays.copyOf(currencyCodes, capacity);
+                discountCents = Arrays.copyOf(discountCents, capacity);
+                shippingCents = Arrays.copyOf(shippingCents, capacity);
+            }
+            int i = orderCount;
+            orderIds[i] = order.getOrderId();
+            customerIds[i] = order.getCustomerId() == null ? 0 : order.getCustomerId();
+            createdAtMillis[i] = order.getCreatedAt() == null ? Long.MIN_VALUE : order.getCreatedAt().toInstant().toEpochMilli();
+            statusCodes[i] = statuses.code(order.getOrderStatus());
+            channelCodes[i] = channels.code(order.getOrderChannel());
+            currencyCodes[i] = currencies.code(order.getCurrency());
+            discountCents[i] = cents(order.getDiscountAmt());
+            shippingCents[i] = cents(order.getShippingFee());
+            orderCount++;
+        }
+
+        void appendItem(OrderItem item, int orderIndex) {
+            if (itemCount == itemOrderIndex.length) {
+                int capacity = itemCount * 2;
+                itemOrderIndex = Arrays.copyOf(itemOrderIndex, capacity);
+                productIds = Arrays.copyOf(productIds, capacity);
+                qty = Arrays.copyOf(qty, capacity);
+                unitPriceCents = Arrays.copyOf(unitPriceCents, capacity);
+                itemDiscountCents = Arrays.copyOf(itemDiscountCents, capacity);
+            }
+            int j = itemCount;
+            itemOrderIndex[j] = orderIndex;
+            productIds[j] = item.getProductId() == null ? 0 : item.getProductId();
+            qty[j] = item.getQty() == null ? 0 : item.getQty();
+            unitPriceCents[j] = cents(item.getUnitPrice());
+            itemDiscountCents[j] = cents(item.getItemDiscount());
+            itemCount++;
+        }
+
+        Columns publish(Instant loadedAt, Instant refreshedAt) {
+            return new Columns(this, loadedAt, refreshedAt);
+        }
+    }
+
+    private static final class Columns {
+        private final long watermark;
+        private final int orderCount;
+        private final long[] orderIds;
+        private final long[] customerIds;
+        private final long[] createdAtMillis;
+        private final short[] statusCodes;
+        private final short[] channelCodes;
+        private final short[] currencyCodes;
+        private final long[] discountCents;
+        private final long[] shippingCents;
+        private final int itemCount;
+        private final int[] itemOrderIndex;
+        private final long[] productIds;
+        private final int[] qty;
+        private final long[] unitPriceCents;
+        private final long[] itemDiscountCents;
+        private final List<String> statuses;
+        private final List<String> channels;
+        private final List<String> currencies;
+        private final Instant loadedAt;
+        private final Instant refreshedAt;
+
+        Columns(Builder builder, Instant loadedAt, Instant refreshedAt) {
+            this.watermark = builder.watermark;
+            this.orderCount = builder.orderCount;
+            this.orderIds = builder.orderIds;
+            this.customerIds = builder.customerIds;
+            this.createdAtMillis = builder.createdAtMillis;
+            this.statusCodes = builder.statusCodes;
+            this.channelCodes = builder.channelCodes;
+            this.currencyCodes = builder.currencyCodes;
+            this.discountCents = builder.discountCents;
+            this.shippingCents = builder.shippingCents;
+            this.itemCount = builder.itemCount;
+            this.itemOrderIndex = builder.itemOrderIndex;
+            this.productIds = builder.productIds;
+            this.qty = builder.qty;
+            this.unitPriceCents = builder.unitPriceCents;
+            this.itemDiscountCents = builder.itemDiscountCents;
+            this.statuses = builder.statuses.values();
+            this.channels = builder.channels.values();
+            this.currencies = builder.currencies.values();
+            this.loadedAt = loadedAt;
+            this.refreshedAt = refreshedAt;
+        }
+
+        // Allocated array capacity, not just the used part.
+        long bytes() {
+            long orders = (long) orderIds.length * (Long.BYTES * 5 + Short.BYTES * 3);
+            long items = (long) itemOrderIndex.length * (Integer.BYTES * 2 + Long.BYTES * 3);
+            return orders + items;
+        }
+    }
+
+    private static final class Dictionary {
+        private final Map<String, Short> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        short code(String value) {
+            String key = value == null ? "" : value;
+            Short code = codes.get(key);
+            if (code == null) {
+                if (values.size() == Short.MAX_VALUE) {
+                    throw new IllegalStateException("too many distinct values for a dictionary column");
+                }
+                code = (short) values.size();
+                codes.put(key, code);
+                values.add(key);
+            }
+            return code;
+        }
+
+        List<String> values() {
+            return List.copyOf(values);
+        }
+    }
+
+    private static final class OrderFilter {
+        private final Columns columns;
+        private final long fromMillis;
+        private final long toMillis;
+        private final int status;
+        private final int channel;
+        private final int currency;
+        private final boolean matchesNothing;
+
+        OrderFilter(Columns columns, CustomDynamicOrderSnapshotQueryRequest request) {
+            this.columns = columns;
+            this.fromMillis = epochMillis(request.createdAfter(), Long.MIN_VALUE);
+            this.toMillis = epochMillis(request.createdBefore(), Long.MAX_VALUE);
+            this.status = code(columns.statuses, request.orderStatus());
+            this.channel = code(columns.channels, request.orderChannel());
+            this.currency = code(columns.currencies, request.currency());
+            this.matchesNothing = status == -2 || channel == -2 || currency == -2 || fromMillis > toMillis;
+        }
+
+        boolean matches(int i) {
+            long createdAt = columns.createdAtMillis[i];
+            return createdAt >= fromMillis && createdAt <= toMillis
+                    && (status < 0 || columns.statusCodes[i] == status)
+                    && (channel < 0 || columns.channelCodes[i] == channel)
+                    && (currency < 0 || columns.currencyCodes[i] == currency);
+        }
+
+        private static long epochMillis(OffsetDateTime value, long unbounded) {
+            return value == null ? unbounded : value.toInstant().toEpochMilli();
+        }
+
+        // -1 for no filter, -2 for a value that is not in the dictionary
+        private static int code(List<String> dictionary, String value) {
+            if (value == null || value.isBlank()) {
+                return -1;
+            }
+            int index = dictionary.indexOf(value);
+            return index < 0 ? -2 : index;
+        }
+    }
+
+    private static final class Totals {
+        private final long[] orders;
+        private final long[] units;
+        private final long[] grossCents;
+        private final long[] itemDiscountCents;
+        private final long[] orderDiscountCents;
+        private final long[] shippingCents;
+
+        Totals(int groups) {
+            orders = new long[groups];
+            units = new long[groups];
+            grossCents = new long[groups];
+            itemDiscountCents = new long[groups];
+            orderDiscountCents = new long[groups];
+            shippingCents = new long[groups];
+        }
+
+        Totals add(Totals other) {
+            for (int g = 0; g < orders.length; g++) {
+                orders[g] += other.orders[g];
+                units[g] += other.units[g];
+                grossCents[g] += other.grossCents[g];
+                itemDiscountCents[g] += other.itemDiscountCents[g];
+                orderDiscountCents[g] += other.orderDiscountCents[g];
+                shippingCents[g] += other.shippingCents[g];
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.demo.todolist.service;
+
+import com.demo.todolist.config.CustomDynamicQueryProperties;
+import com.demo.todolist.customdynamic.event.CustomDynamicConnectionClosedEvent;
+import com.demo.todolist.customdynamic.service.CustomDynamicDataSourceRegistry;
+import com.demo.todolist.dto.CustomDynamicCacheStatsResponse;
+import com.demo.todolist.dto.CustomDynamicPageResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Supplier;
+
+@Service
+public class CustomDynamicQueryCache {
+
+    private final CustomDynamicDataSourceRegistry registry;
+    private final ObjectMapper objectMapper;
+    private final CustomDynamicQueryProperties.Cache settings;
+    private final CustomDynamicBulkheads bulkheads;
+    private final Cache<CacheKey, CustomDynamicPageResponse<?>> cache;
+
+    public CustomDynamicQueryCache(CustomDynamicDataSourceRegistry registry,
+                                   ObjectMapper objectMapper,
+                                   CustomDynamicQueryProperties properties,
+                                   CustomDynamicBulkheads bulkheads,
+                                   MeterRegistry meterRegistry) {
+        this.registry = registry;
+        this.objectMapper = objectMapper;
+        this.settings = properties.getCache();
+        this.bulkheads = bulkheads;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(settings.getMaximumRows())
+                // an empty page still costs an entry
+                .weigher((CacheKey key, CustomDynamicPageResponse<?> page) -> page.records().size() + 1)
+                .expireAfter(new EntityTtl(settings))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "dynamic.query.cache");
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> CustomDynamicPageResponse<T> get(String connectionId,
+                                                String entity,
+                                                Object request,
+                                                Supplier<CustomDynamicPageResponse<T>> loader) {
+        if (!settings.isEnabled()) {
+            return loader.get();
+        }
+        CacheKey key = new CacheKey(connectionId, entity, normalize(request));
+        CustomDynamicPageResponse<?> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            // hits never reach the database, so keep the connection from idling out here
+            registry.touch(connectionId);
+            return ((CustomDynamicPageResponse<T>) cached).asCacheHit();
+        }
+        // Concurrent misses for the same key wait for a single load. The bulkhead slot is taken before entering the
+        // cache's compute, so a request queued for a slot never holds the lock of its key; the loader's own bulkhead
+        // call then runs on that slot.
+        return bulkheads.call(connectionId, () -> (CustomDynamicPageResponse<T>) cache.get(key, ignored -> loader.get()));
+    }
+
+    public CustomDynamicCacheStatsResponse stats() {
+        CacheStats stats = cache.stats();
+        long weightedRows = cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+        return new CustomDynamicCacheStatsResponse(
+                settings.isEnabled(),
+                cache.estimatedSize(),
+                weightedRows,
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                stats.averageLoadPenalty() / 1_000_000d);
+    }
+
+    @EventListener
+    public void onConnectionClosed(CustomDynamicConnectionClosedEvent event) {
+        cache.asMap().keySet().removeIf(key -> key.connectionId().equals(event.connectionId()));
+    }
+
+    // Equivalent requests share an entry: nulls and blank strings are dropped and the connection id is part of the key.
+    private JsonNode normalize(Object request) {
+        ObjectNode node = objectMapper.valueToTree(request);
+        node.remove("connectionId");
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            JsonNode value = fields.next().getValue();
+            if (value.isNull() || (value.isTextual() && value.asText().isBlank())) {
+                fields.remove();
+            }
+        }
+        return node;
+    }
+
+    private record CacheKey(String connectionId, String entity, JsonNode request) {
+    }
+
+    private static final class EntityTtl implements Expiry<CacheKey, CustomDynamicPageResponse<?>> {
+        private final CustomDynamicQueryProperties.Cache settings;
+
+        EntityTtl(CustomDynamicQueryProperties.Cache settings) {
+            this.settings = settings;
+        }
+
+        @Override
+        public long expireAfterCreate(CacheKey key, CustomDynamicPageResponse<?> value, long currentTime) {
+            Duration ttl = settings.getTtl().getOrDefault(key.entity(), settings.getDefaultTtl());
+            return ttl.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(CacheKey key, CustomDynamicPageResponse<?> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(CacheKey key, CustomDynamicPageResponse<?> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
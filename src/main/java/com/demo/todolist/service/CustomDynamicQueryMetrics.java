@@ -0,0 +1,59 @@
+package com.demo.todolist.service;
+
+import com.demo.todolist.customdynamic.service.CustomDynamicDataSourceRegistry;
+import com.demo.todolist.dto.CustomDynamicPageResponse;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+// Query meters are tagged by the configured database name rather than the connection UUID, so the number of
+// series is bounded by dynamic.datasource.databases instead of growing with every connect.
+@Component
+public class CustomDynamicQueryMetrics {
+
+    private final CustomDynamicDataSourceRegistry registry;
+    private final MeterRegistry meterRegistry;
+
+    public CustomDynamicQueryMetrics(CustomDynamicDataSourceRegistry registry, MeterRegistry meterRegistry) {
+        this.registry = registry;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> CustomDynamicPageResponse<T> record(String connectionId,
+                                                   String entity,
+                                                   Supplier<CustomDynamicPageResponse<T>> query) {
+        String databaseName = registry.getDatabaseName(connectionId);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CustomDynamicPageResponse<T> page;
+        try {
+            page = query.get();
+        } catch (RuntimeException ex) {
+            sample.stop(timer(databaseName, entity, "error", "none"));
+            throw ex;
+        }
+        sample.stop(timer(databaseName, entity, "success", page.cacheHit() ? "hit" : "miss"));
+        DistributionSummary.builder("dynamic.query.rows")
+                .description("Rows returned per dynamic query page")
+                .baseUnit("rows")
+                .tag("database", databaseName)
+                .tag("entity", entity)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(page.records().size());
+        return page;
+    }
+
+    private Timer timer(String databaseName, String entity, String outcome, String cache) {
+        return Timer.builder("dynamic.query")
+                .description("Latency of dynamic query endpoints")
+                .tag("database", databaseName)
+                .tag("entity", entity)
+                .tag("outcome", outcome)
+                .tag("cache", cache)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,277 @@
+package com.demo.todolist.service;
+
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.demo.todolist.customdynamic.dialect.CustomDynamicSqlDialect;
+import com.demo.todolist.dto.CustomDynamicCategoryQueryRequest;
+import com.demo.todolist.dto.CustomDynamicCustomerQueryRequest;
+import com.demo.todolist.dto.CustomDynamicInventoryMovementQueryRequest;
+import com.demo.todolist.dto.CustomDynamicOrderItemQueryRequest;
+import com.demo.todolist.dto.CustomDynamicOrderQueryRequest;
+import com.demo.todolist.dto.CustomDynamicPaymentQueryRequest;
+import com.demo.todolist.dto.CustomDynamicProductQueryRequest;
+import com.demo.todolist.dto.CustomDynamicReturnQueryRequest;
+import com.demo.todolist.entity.Category;
+import com.demo.todolist.entity.Customer;
+import com.demo.todolist.entity.InventoryMovement;
+import com.demo.todolist.entity.OrderEntity;
+import com.demo.todolist.entity.OrderItem;
+import com.demo.todolist.entity.Payment;
+import com.demo.todolist.entity.Product;
+import com.demo.todolist.entity.ReturnEntry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+// The request filters of every entity query, page, count and export alike, as fixed SQL fragments with positional
+// binds. The set of present filters (a bitmask), the padded IN list size and whether a cursor is given fully determine
+// the SQL text, so one rendering per shape serves every request of that shape and the driver sees the same statement.
+final class CustomDynamicQueryTemplate<R, T> {
+
+    // Oracle rejects IN lists longer than 1000 expressions.
+    static final int IN_LIMIT = 1000;
+
+    static final CustomDynamicQueryTemplate<CustomDynamicCustomerQueryRequest, Customer> CUSTOMERS =
+            new CustomDynamicQueryTemplate<CustomDynamicCustomerQueryRequest, Customer>(Customer.class, "customer_id", null)
+                    .columns(dialect -> String.join(", ", dialect.getCustomerColumns()))
+                    .candidates("customer_id")
+                    .filter("email = ?", request -> text(request.email()))
+                    .filter("full_name LIKE ?", request -> contains(request.fullName()))
+                    .filter("(full_name LIKE ? OR email LIKE ?)", request -> contains(request.keyword()))
+                    .filter("country = ?", request -> text(request.country()))
+                    .filter("city = ?", request -> text(request.city()))
+                    .filter("is_vip = ?", CustomDynamicCustomerQueryRequest::isVip)
+                    .filter("signup_at >= ?", CustomDynamicCustomerQueryRequest::signupAfter)
+                    .filter("signup_at <= ?", CustomDynamicCustomerQueryRequest::signupBefore);
+
+    static final CustomDynamicQueryTemplate<CustomDynamicCategoryQueryRequest, Category> CATEGORIES =
+            new CustomDynamicQueryTemplate<CustomDynamicCategoryQueryRequest, Category>(Category.class, "category_id", null)
+                    .filter("category_name LIKE ?", request -> contains(request.categoryName()));
+
+    static final CustomDynamicQueryTemplate<CustomDynamicProductQueryRequest, Product> PRODUCTS =
+            new CustomDynamicQueryTemplate<CustomDynamicProductQueryRequest, Product>(Product.class, "product_id", null)
+                    .candidates("product_id")
+                    .filter("sku = ?", request -> text(request.sku()))
+                    .filter("product_name LIKE ?", request -> contains(request.productName()))
+                    .filter("(product_name LIKE ? OR sku LIKE ?)", request -> contains(request.keyword()))
+                    .filter("category_id = ?", CustomDynamicProductQueryRequest::categoryId)
+                    .filter("is_active = ?", CustomDynamicProductQueryRequest::isActive)
+                    .filter("list_price >= ?", CustomDynamicProductQueryRequest::minListPrice)
+                    .filter("list_price <= ?", CustomDynamicProductQueryRequest::maxListPrice);
+
+    static final CustomDynamicQueryTemplate<CustomDynamicInventoryMovementQueryRequest, InventoryMovement> INVENTORY_MOVEMENTS =
+            new CustomDynamicQueryTemplate<CustomDynamicInventoryMovementQueryRequest, InventoryMovement>(
+                    InventoryMovement.class, "movement_id", "moved_at")
+                    .filter("product_id = ?", CustomDynamicInventoryMovementQueryRequest::productId)
+                    .filter("movement_type = ?", request -> text(request.movementType()))
+                    .filter("warehouse = ?", request -> text(request.warehouse()))
+                    .filter("moved_at >= ?", CustomDynamicInventoryMovementQueryRequest::movedAfter)
+                    .filter("moved_at <= ?", CustomDynamicInventoryMovementQueryRequest::movedBefore);
+
+    static final CustomDynamicQueryTemplate<CustomDynamicOrderQueryRequest, OrderEntity> ORDERS =
+            new CustomDynamicQueryTemplate<CustomDynamicOrderQueryRequest, OrderEntity>(OrderEntity.class, "order_id", "created_at")
+                    .filter("customer_id = ?", CustomDynamicOrderQueryRequest::customerId)
+                    .filter("order_status = ?", request -> text(request.orderStatus()))
+                    .filter("order_channel = ?", request -> text(request.orderChannel()))
+                    .filter("created_at >= ?", CustomDynamicOrderQueryRequest::createdAfter)
+                    .filter("created_at <= ?", CustomDynamicOrderQueryRequest::createdBefore);
+
+    static final CustomDynamicQueryTemplate<CustomDynamicOrderItemQueryRequest, OrderItem> ORDER_ITEMS =
+            new CustomDynamicQueryTemplate<CustomDynamicOrderItemQueryRequest, OrderItem>(OrderItem.class, "order_item_id", null)
+                    .filter("order_id = ?", CustomDynamicOrderItemQueryRequest::orderId)
+                    .filter("product_id = ?", CustomDynamicOrderItemQueryRequest::productId);
+
+    static final CustomDynamicQueryTemplate<CustomDynamicPaymentQueryRequest, Payment> PAYMENTS =
+            new CustomDynamicQueryTemplate<CustomDynamicPaymentQueryRequest, Payment>(Payment.class, "payment_id", null)
+                    .filter("order_id = ?", CustomDynamicPaymentQueryRequest::orderId)
+                    .filter("payment_method = ?", request -> text(request.paymentMethod()))
+                    .filter("payment_status = ?", request -> text(request.paymentStatus()))
+                    .filter("paid_at >= ?", CustomDynamicPaymentQueryRequest::paidAfter)
+                    .filter("paid_at <= ?", CustomDynamicPaymentQueryRequest::paidBefore);
+
+    static final CustomDynamicQueryTemplate<CustomDynamicReturnQueryRequest, ReturnEntry> RETURNS =
+            new CustomDynamicQueryTemplate<CustomDynamicReturnQueryRequest, ReturnEntry>(ReturnEntry.class, "return_id", "requested_at")
+                    .filter("order_id = ?", CustomDynamicReturnQueryRequest::orderId)
+                    .filter("product_id = ?", CustomDynamicReturnQueryRequest::productId)
+                    .filter("return_status = ?", request -> text(request.returnStatus()))
+                    .filter("requested_at >= ?", CustomDynamicReturnQueryRequest::requestedAfter)
+                    .filter("requested_at <= ?", CustomDynamicReturnQueryRequest::requestedBefore);
+
+    // Children of an order graph page, selected by order id only.
+    static final CustomDynamicQueryTemplate<Void, OrderItem> ORDER_ITEMS_OF_ORDERS =
+            new CustomDynamicQueryTemplate<Void, OrderItem>(OrderItem.class, "order_item_id", null).in("order_id");
+
+    static final CustomDynamicQueryTemplate<Void, Payment> PAYMENTS_OF_ORDERS =
+            new CustomDynamicQueryTemplate<Void, Payment>(Payment.class, "payment_id", null).in("order_id");
+
+    static final CustomDynamicQueryTemplate<Void, ReturnEntry> RETURNS_OF_ORDERS =
+            new CustomDynamicQueryTemplate<Void, ReturnEntry>(ReturnEntry.class, "return_id", null).in("order_id");
+
+    private final Class<T> entityClass;
+    private final String idColumn;
+    // null for id-ordered entities; otherwise pages are ordered by this column, then id, both descending
+    private final String sortColumn;
+    private final List<Filter<R>> filters = new ArrayList<>();
+    private Function<CustomDynamicSqlDialect, String> columns;
+    private String inColumn;
+    // name-search candidates are a superset: ids above the index watermark are matched as well
+    private boolean openEnded;
+
+    private CustomDynamicQueryTemplate(Class<T> entityClass, String idColumn, String sortColumn) {
+        this.entityClass = entityClass;
+        this.idColumn = idColumn;
+        this.sortColumn = sortColumn;
+    }
+
+    Class<T> getEntityClass() {
+        return entityClass;
+    }
+
+    // Evaluates the request once: which filters are present and the values for every placeholder, in order.
+    Bound bind(R request,
+               CustomDynamicSqlDialect dialect,
+               CustomDynamicNameSearchIndex.Candidates candidates,
+               CustomDynamicKeysetCursor cursor,
+               boolean count) {
+        long mask = 0;
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; request != null && i < filters.size(); i++) {
+            Filter<R> filter = filters.get(i);
+            Object value = filter.value().apply(request);
+            if (value != null) {
+                mask |= 1L << i;
+                values.addAll(Collections.nCopies(filter.binds(), value));
+            }
+        }
+        int inSize = 0;
+        if (candidates != null) {
+            List<Long> ids = candidates.ids();
+            inSize = bucket(ids.size());
+            if (ids.isEmpty() && !openEnded) {
+                throw new IllegalArgumentException("IN list of " + inColumn + " is empty");
+            }
+            values.addAll(ids);
+            if (!ids.isEmpty()) {
+                // repeating an id does not change the result of IN
+                values.addAll(Collections.nCopies(inSize - ids.size(), ids.get(ids.size() - 1)));
+            }
+            if (openEnded) {
+                values.add(candidates.indexedThrough());
+            }
+        }
+        boolean seek = !count && cursor != null;
+        if (seek) {
+            if (sortColumn != null) {
+                values.add(cursor.sortValue());
+                values.add(cursor.sortValue());
+            }
+            values.add(cursor.id());
+        }
+        return new Bound(new Shape(this, dialect, mask, candidates != null, inSize, seek, count, values.size()), values);
+    }
+
+    String render(Shape shape) {
+        TableInfo tableInfo = TableInfoHelper.getTableInfo(entityClass);
+        StringBuilder sql = new StringBuilder("SELECT ");
+        if (shape.count()) {
+            sql.append("COUNT(*)");
+        } else {
+            sql.append(columns == null ? tableInfo.getAllSqlSelect() : columns.apply(shape.dialect()));
+        }
+        sql.append(" FROM ").append(tableInfo.getTableName());
+        List<String> conditions = new ArrayList<>();
+        for (int i = 0; i < filters.size(); i++) {
+            if ((shape.mask() & (1L << i)) != 0) {
+                conditions.add(filters.get(i).sql());
+            }
+        }
+        if (shape.narrowed()) {
+            String in = inColumn + " IN (" + String.join(", ", Collections.nCopies(shape.inSize(), "?")) + ")";
+            if (openEnded) {
+                // ids above this bound may have committed after the index was last refreshed
+                String unindexed = inColumn + " > ?";
+                conditions.add(shape.inSize() == 0 ? unindexed : "(" + in + " OR " + unindexed + ")");
+            } else {
+                conditions.add(in);
+            }
+        }
+        if (shape.seek()) {
+            conditions.add(sortColumn == null
+                    ? idColumn + " > ?"
+                    : "(" + sortColumn + " < ? OR (" + sortColumn + " = ? AND " + idColumn + " < ?))");
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        if (!shape.count()) {
+            sql.append(sortColumn == null
+                    ? " ORDER BY " + idColumn + " ASC"
+                    : " ORDER BY " + sortColumn + " DESC, " + idColumn + " DESC");
+        }
+        return sql.toString();
+    }
+
+    // Pads IN lists to the next power of two, so about ten statement shapes cover every list size up to the limit.
+    // Longer lists would each mint a statement of their own and fail on Oracle, so they are rejected.
+    static int bucket(int size) {
+        if (size > IN_LIMIT) {
+            throw new IllegalArgumentException("IN list of " + size + " exceeds the limit of " + IN_LIMIT);
+        }
+        if (size <= 1) {
+            return size;
+        }
+        return Math.min(Integer.highestOneBit(size - 1) << 1, IN_LIMIT);
+    }
+
+    private CustomDynamicQueryTemplate<R, T> columns(Function<CustomDynamicSqlDialect, String> columns) {
+        this.columns = columns;
+        return this;
+    }
+
+    private CustomDynamicQueryTemplate<R, T> in(String column) {
+        this.inColumn = column;
+        return this;
+    }
+
+    private CustomDynamicQueryTemplate<R, T> candidates(String column) {
+        this.openEnded = true;
+        return in(column);
+    }
+
+    // The value function returns null when the filter is absent from the request.
+    private CustomDynamicQueryTemplate<R, T> filter(String sql, Function<R, Object> value) {
+        if (filters.size() == Long.SIZE) {
+            throw new IllegalStateException("a template supports at most " + Long.SIZE + " filters");
+        }
+        int binds = (int) sql.chars().filter(c -> c == '?').count();
+        filters.add(new Filter<>(sql, binds, value));
+        return this;
+    }
+
+    private static String text(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    // Same pattern MyBatis-Plus uses for like(): the value is not escaped.
+    private static String contains(String value) {
+        return value == null || value.isBlank() ? null : "%" + value + "%";
+    }
+
+    private record Filter<R>(String sql, int binds, Function<R, Object> value) {
+    }
+
+    record Shape(CustomDynamicQueryTemplate<?, ?> template,
+                 CustomDynamicSqlDialect dialect,
+                 long mask,
+                 boolean narrowed,
+                 int inSize,
+                 boolean seek,
+                 boolean count,
+                 int binds) {
+    }
+
+    record Bound(Shape shape, List<Object> values) {
+    }
+}
@@ -0,0 +1,95 @@
+package com.demo.todolist.service;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.demo.todolist.customdynamic.dialect.CustomDynamicSqlDialect;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Registers one MappedStatement per template shape the first time it is seen, with a static SQL source, so a repeated
+// request shape skips wrapper building and SQL rendering and reaches the driver as the identical statement text.
+// Pagination is still appended by the pagination interceptor, which finds the page among the parameters.
+@Service
+public class CustomDynamicQueryTemplates {
+
+    private static final String NAMESPACE = CustomDynamicQueryTemplates.class.getName();
+
+    private final SqlSessionTemplate sqlSession;
+    private final Configuration configuration;
+    private final Map<CustomDynamicQueryTemplate.Shape, String> statements = new ConcurrentHashMap<>();
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    public CustomDynamicQueryTemplates(SqlSessionTemplate sqlSession) {
+        this.sqlSession = sqlSession;
+        this.configuration = sqlSession.getConfiguration();
+    }
+
+    // A null page selects every matching row; candidates narrow the template's IN column when not null.
+    <R, T> List<T> select(CustomDynamicQueryTemplate<R, T> template,
+                          CustomDynamicSqlDialect dialect,
+                          R request,
+                          CustomDynamicNameSearchIndex.Candidates candidates,
+                          CustomDynamicKeysetCursor cursor,
+                          IPage<T> page) {
+        CustomDynamicQueryTemplate.Bound bound = template.bind(request, dialect, candidates, cursor, false);
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("values", bound.values());
+        if (page != null) {
+            parameters.put("page", page);
+        }
+        return sqlSession.selectList(statement(bound.shape()), parameters);
+    }
+
+    // Streams every matching row to the handler instead of collecting a list.
+    <R, T> void select(CustomDynamicQueryTemplate<R, T> template,
+                       CustomDynamicSqlDialect dialect,
+                       R request,
+                       ResultHandler<T> handler) {
+        CustomDynamicQueryTemplate.Bound bound = template.bind(request, dialect, null, null, false);
+        sqlSession.select(statement(bound.shape()), Map.of("values", bound.values()), handler);
+    }
+
+    <R> long count(CustomDynamicQueryTemplate<R, ?> template,
+                   CustomDynamicSqlDialect dialect,
+                   R request,
+                   CustomDynamicNameSearchIndex.Candidates candidates) {
+        CustomDynamicQueryTemplate.Bound bound = template.bind(request, dialect, candidates, null, true);
+        Long count = sqlSession.selectOne(statement(bound.shape()), Map.of("values", bound.values()));
+        return count == null ? 0 : count;
+    }
+
+    private String statement(CustomDynamicQueryTemplate.Shape shape) {
+        return statements.computeIfAbsent(shape, this::register);
+    }
+
+    private String register(CustomDynamicQueryTemplate.Shape shape) {
+        Class<?> entityClass = shape.template().getEntityClass();
+        String id = NAMESPACE + "." + entityClass.getSimpleName() + (shape.count() ? "Count" : "") + sequence.incrementAndGet();
+        List<ParameterMapping> parameterMappings = new ArrayList<>(shape.binds());
+        for (int i = 0; i < shape.binds(); i++) {
+            // Object resolves the type handler from each value at bind time
+            parameterMappings.add(new ParameterMapping.Builder(configuration, "values[" + i + "]", Object.class).build());
+        }
+        Class<?> resultType = shape.count() ? Long.class : entityClass;
+        ResultMap resultMap = new ResultMap.Builder(configuration, id + "-Inline", resultType, new ArrayList<>()).build();
+        MappedStatement statement = new MappedStatement.Builder(configuration, id,
+                new StaticSqlSource(configuration, shape.template().render(shape), parameterMappings), SqlCommandType.SELECT)
+                .resultMaps(List.of(resultMap))
+                .build();
+        configuration.addMappedStatement(statement);
+        return id;
+    }
+}
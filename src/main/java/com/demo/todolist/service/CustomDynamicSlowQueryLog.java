@@ -0,0 +1,182 @@
+package com.demo.todolist.service;
+
+import com.demo.todolist.config.CustomDynamicQueryProperties;
+import com.demo.todolist.customdynamic.config.CustomDynamicDataSourceContext;
+import com.demo.todolist.customdynamic.config.CustomDynamicRoutingDataSource;
+import com.demo.todolist.customdynamic.dialect.CustomDynamicSqlDialect;
+import com.demo.todolist.customdynamic.service.CustomDynamicDataSourceRegistry;
+import com.demo.todolist.dto.CustomDynamicSlowQuery;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Bounded ring buffer of statements that exceeded dynamic.query.slow-query.threshold. Plans are captured on a
+// single background thread with a connection borrowed from the same pool, so the slow request never waits for
+// them; when that thread is busy further EXPLAINs are dropped rather than queued without bound.
+@Service
+public class CustomDynamicSlowQueryLog {
+
+    private static final int EXPLAIN_QUEUE_CAPACITY = 64;
+
+    private final CustomDynamicDataSourceRegistry registry;
+    private final CustomDynamicRoutingDataSource routingDataSource;
+    private final CustomDynamicQueryProperties.SlowQuery settings;
+    private final AtomicReferenceArray<Entry> entries;
+    private final AtomicLong sequence = new AtomicLong();
+    // plans per (database, sql) shape; repeated slow executions of one shape reuse the last plan
+    private final Cache<String, String> plans;
+    private final ThreadPoolExecutor explainExecutor;
+
+    public CustomDynamicSlowQueryLog(CustomDynamicDataSourceRegistry registry,
+                                     CustomDynamicRoutingDataSource routingDataSource,
+                                     CustomDynamicQueryProperties properties) {
+        this.registry = registry;
+        this.routingDataSource = routingDataSource;
+        this.settings = properties.getSlowQuery();
+        this.entries = new AtomicReferenceArray<>(settings.getCapacity());
+        this.plans = Caffeine.newBuilder()
+                .expireAfterWrite(settings.getExplainCooldown())
+                .maximumSize(1000)
+                .build();
+        this.explainExecutor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(EXPLAIN_QUEUE_CAPACITY),
+                new CustomizableThreadFactory("slow-query-explain-"),
+                new ThreadPoolExecutor.DiscardPolicy());
+        this.explainExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    // Called on the statement's own thread, so the routing key still names the connection that ran it.
+    public void record(String statementId, BoundSql boundSql, Configuration configuration, Duration elapsed) {
+        String connectionId = CustomDynamicDataSourceContext.getCurrentKey();
+        String databaseName = registry.findDatabaseName(connectionId);
+        String sql = boundSql.getSql().replaceAll("\\s+", " ").trim();
+        List<Object> parameters = parameterValues(boundSql, configuration);
+        List<String> parameterTypes = parameters.stream()
+                .map(value -> value == null ? "null" : value.getClass().getSimpleName())
+                .toList();
+        Entry entry = new Entry(Instant.now(), databaseName == null ? CustomDynamicDataSourceContext.DEFAULT_KEY : databaseName,
+                statementId, sql, parameterTypes, elapsed.toMillis());
+        entries.set((int) (sequence.getAndIncrement() % entries.length()), entry);
+
+        CustomDynamicSqlDialect dialect = registry.findDialect(connectionId);
+        if (!settings.isExplain() || dialect == null || !isSelect(sql)) {
+            return;
+        }
+        String planKey = entry.databaseName + '\n' + sql;
+        String plan = plans.getIfPresent(planKey);
+        if (plan != null) {
+            entry.plan = plan;
+            return;
+        }
+        explainExecutor.execute(() -> {
+            entry.plan = explain(connectionId, dialect, sql, parameters);
+            plans.put(planKey, entry.plan);
+        });
+    }
+
+    public List<CustomDynamicSlowQuery> recent() {
+        List<Entry> snapshot = new ArrayList<>();
+        for (int i = 0; i < entries.length(); i++) {
+            Entry entry = entries.get(i);
+            if (entry != null) {
+                snapshot.add(entry);
+            }
+        }
+        snapshot.sort(Comparator.comparing((Entry entry) -> entry.executedAt).reversed());
+        return snapshot.stream()
+                .map(entry -> new CustomDynamicSlowQuery(entry.executedAt, entry.databaseName, entry.statementId,
+                        entry.sql, entry.parameterTypes, entry.elapsedMs, entry.plan))
+                .toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+
+    private String explain(String connectionId, CustomDynamicSqlDialect dialect, String sql, List<Object> parameters) {
+        if (registry.findDialect(connectionId) == null) {
+            // closed before the plan could be captured; never fall through to the default datasource
+            return "connection closed before EXPLAIN";
+        }
+        return CustomDynamicDataSourceContext.callWith(connectionId, () -> {
+            try (Connection connection = routingDataSource.getConnection()) {
+                return dialect.explain(connection, sql, parameters);
+            } catch (SQLException ex) {
+                return "EXPLAIN failed: " + ex.getMessage();
+            }
+        });
+    }
+
+    // Same value resolution as MyBatis' DefaultParameterHandler; values are only kept for the EXPLAIN.
+    private static List<Object> parameterValues(BoundSql boundSql, Configuration configuration) {
+        Object parameterObject = boundSql.getParameterObject();
+        MetaObject metaObject = null;
+        List<Object> values = new ArrayList<>();
+        for (ParameterMapping mapping : boundSql.getParameterMappings()) {
+            if (mapping.getMode() == ParameterMode.OUT) {
+                continue;
+            }
+            String property = mapping.getProperty();
+            if (boundSql.hasAdditionalParameter(property)) {
+                values.add(boundSql.getAdditionalParameter(property));
+            } else if (parameterObject == null) {
+                values.add(null);
+            } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())) {
+                values.add(parameterObject);
+            } else {
+                if (metaObject == null) {
+                    metaObject = configuration.newMetaObject(parameterObject);
+                }
+                values.add(metaObject.getValue(property));
+            }
+        }
+        return values;
+    }
+
+    private static boolean isSelect(String sql) {
+        String head = sql.length() > 6 ? sql.substring(0, 6).toLowerCase(Locale.ROOT) : sql.toLowerCase(Locale.ROOT);
+        return head.startsWith("select") || head.startsWith("with");
+    }
+
+    private static final class Entry {
+        private final Instant executedAt;
+        private final String databaseName;
+        private final String statementId;
+        private final String sql;
+        private final List<String> parameterTypes;
+        private final long elapsedMs;
+        private volatile String plan;
+
+        Entry(Instant executedAt, String databaseName, String statementId, String sql, List<String> parameterTypes,
+              long elapsedMs) {
+            this.executedAt = executedAt;
+            this.databaseName = databaseName;
+            this.statementId = statementId;
+            this.sql = sql;
+            this.parameterTypes = parameterTypes;
+            this.elapsedMs = elapsedMs;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.demo.todolist.service;
+
+import com.demo.todolist.config.CustomDynamicQueryProperties;
+import com.demo.todolist.dto.CustomDynamicStockCheckpoint;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+// One JSON file per checkpoint under <directory>/<databaseName>/<takenAt epoch millis>.json.
+@Component
+public class CustomDynamicStockCheckpointStore {
+
+    private static final String SUFFIX = ".json";
+
+    private final ObjectMapper objectMapper;
+    private final CustomDynamicQueryProperties.Checkpoints settings;
+
+    public CustomDynamicStockCheckpointStore(ObjectMapper objectMapper, CustomDynamicQueryProperties properties) {
+        this.objectMapper = objectMapper;
+        this.settings = properties.getCheckpoints();
+    }
+
+    public CustomDynamicStockCheckpoint latest(String databaseName) {
+        List<Long> takenAt = list(databaseName);
+        return takenAt.isEmpty() ? null : read(databaseName, takenAt.get(takenAt.size() - 1));
+    }
+
+    // The newest checkpoint taken at or before the given instant, or null if there is none.
+    public CustomDynamicStockCheckpoint atOrBefore(String databaseName, OffsetDateTime instant) {
+        long limit = instant.toInstant().toEpochMilli();
+        Long match = null;
+        for (Long takenAt : list(databaseName)) {
+            if (takenAt > limit) {
+                break;
+            }
+            match = takenAt;
+        }
+        return match == null ? null : read(databaseName, match);
+    }
+
+    public void save(CustomDynamicStockCheckpoint checkpoint) {
+        Path directory = directory(checkpoint.databaseName());
+        Path target = directory.resolve(checkpoint.takenAt().toInstant().toEpochMilli() + SUFFIX);
+        try {
+            Files.createDirectories(directory);
+            // write then rename so readers never see a partial file
+            Path temp = Files.createTempFile(directory, "checkpoint", ".tmp");
+            objectMapper.writeValue(temp.toFile(), checkpoint);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        prune(checkpoint.databaseName());
+    }
+
+    private void prune(String databaseName) {
+        List<Long> takenAt = list(databaseName);
+        for (int i = 0; i < takenAt.size() - settings.getRetain(); i++) {
+            try {
+                Files.deleteIfExists(file(databaseName, takenAt.get(i)));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    private List<Long> list(String databaseName) {
+        Path directory = directory(databaseName);
+        List<Long> takenAt = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return takenAt;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SUFFIX))
+                    .map(name -> name.substring(0, name.length() - SUFFIX.length()))
+                    .filter(name -> !name.isEmpty() && name.chars().allMatch(Character::isDigit))
+                    .map(Long::valueOf)
+                    .forEach(takenAt::add);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        takenAt.sort(null);
+        return takenAt;
+    }
+
+    private CustomDynamicStockCheckpoint read(String databaseName, long takenAt) {
+        try {
+            return objectMapper.readValue(file(databaseName, takenAt).toFile(), CustomDynamicStockCheckpoint.class);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private Path file(String databaseName, long takenAt) {
+        return directory(databaseName).resolve(takenAt + SUFFIX);
+    }
+
+    private Path directory(String databaseName) {
+        // database names come from configuration keys, but never let one escape the store directory
+        return Paths.get(settings.getDirectory()).resolve(databaseName.replaceAll("[^A-Za-z0-9_-]", "_"));
+    }
+}
@@ -0,0 +1,187 @@
+package com.demo.todolist.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.demo.todolist.config.CustomDynamicQueryProperties;
+import com.demo.todolist.customdynamic.config.CustomDynamicDataSourceContext;
+import com.demo.todolist.customdynamic.event.CustomDynamicConnectionClosedEvent;
+import com.demo.todolist.customdynamic.service.CustomDynamicDataSourceRegistry;
+import com.demo.todolist.dto.CustomDynamicStockBalance;
+import com.demo.todolist.dto.CustomDynamicStockQueryRequest;
+import com.demo.todolist.dto.CustomDynamicStockResponse;
+import com.demo.todolist.entity.InventoryMovement;
+import com.demo.todolist.mapper.InventoryMovementMapper;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Stock on hand per (product, warehouse), kept in memory per connection. The first lookup aggregates the movement
+// history once; later lookups only apply movements near and past the movement_id watermark, and the whole ledger is
+// rebuilt every full-reload-interval.
+@Service
+public class CustomDynamicStockService {
+
+    static final Comparator<CustomDynamicStockBalance> BALANCE_ORDER = Comparator
+            .comparing(CustomDynamicStockBalance::productId)
+            .thenComparing(CustomDynamicStockBalance::warehouse);
+
+    private final CustomDynamicDataSourceRegistry registry;
+    private final InventoryMovementMapper inventoryMovementMapper;
+    private final CustomDynamicQueryProperties.Stock settings;
+    private final CustomDynamicStockCheckpointService checkpointService;
+    private final CustomDynamicBulkheads bulkheads;
+    private final Map<String, Ledger> ledgers = new ConcurrentHashMap<>();
+
+    public CustomDynamicStockService(CustomDynamicDataSourceRegistry registry,
+                                     InventoryMovementMapper inventoryMovementMapper,
+                                     CustomDynamicQueryProperties properties,
+                                     CustomDynamicStockCheckpointService checkpointService,
+                                     CustomDynamicBulkheads bulkheads) {
+        this.registry = registry;
+        this.inventoryMovementMapper = inventoryMovementMapper;
+        this.settings = properties.getStock();
+        this.checkpointService = checkpointService;
+        this.bulkheads = bulkheads;
+    }
+
+    public CustomDynamicStockResponse queryStock(CustomDynamicStockQueryRequest request) {
+        String connectionId = request.connectionId();
+        registry.touch(connectionId);
+        if (request.asOf() != null) {
+            return bulkheads.call(connectionId,
+                    () -> CustomDynamicDataSourceContext.callWith(connectionId, () -> checkpointService.queryAsOf(request)));
+        }
+        Ledger ledger = ledgers.computeIfAbsent(connectionId, id -> new Ledger());
+        CustomDynamicDataSourceContext.runWith(connectionId, () -> refresh(connectionId, ledger));
+
+        Balances published = ledger.balances;
+        boolean nonZeroOnly = Boolean.TRUE.equals(request.nonZeroOnly());
+        List<CustomDynamicStockBalance> balances = new ArrayList<>();
+        for (Map.Entry<StockKey, Long> entry : published.quantities().entrySet()) {
+            StockKey key = entry.getKey();
+            long qty = entry.getValue();
+            if ((request.productId() == null || request.productId().equals(key.productId()))
+                    && (request.warehouse() == null || request.warehouse().equals(key.warehouse()))
+                    && (!nonZeroOnly || qty != 0)) {
+                balances.add(new CustomDynamicStockBalance(key.productId(), key.warehouse(), qty));
+            }
+        }
+        balances.sort(BALANCE_ORDER);
+        return new CustomDynamicStockResponse(balances, published.watermark(), published.refreshedAt());
+    }
+
+    @EventListener
+    public void onConnectionClosed(CustomDynamicConnectionClosedEvent event) {
+        ledgers.remove(event.connectionId());
+    }
+
+    // Only the loads take a bulkhead slot; lookups on a fresh ledger never reach the database.
+    private void refresh(String connectionId, Ledger ledger) {
+        if (ledger.balances == null) {
+            ledger.lock.lock();
+            try {
+                if (ledger.balances == null) {
+                    bulkheads.run(connectionId, () -> load(ledger));
+                }
+            } finally {
+                ledger.lock.unlock();
+            }
+            return;
+        }
+        Instant now = Instant.now();
+        if (now.isBefore(ledger.balances.refreshedAt().plus(settings.getRefreshInterval()))) {
+            return;
+        }
+        // Only one caller applies new movements; concurrent lookups read the published balances meanwhile.
+        if (ledger.lock.tryLock()) {
+            try {
+                Balances current = ledger.balances;
+                if (now.isAfter(current.loadedAt().plus(settings.getFullReloadInterval()))) {
+                    bulkheads.run(connectionId, () -> load(ledger));
+                } else {
+                    bulkheads.run(connectionId, () -> ledger.balances = applyNewMovements(current, current.loadedAt()));
+                }
+            } finally {
+                ledger.lock.unlock();
+            }
+        }
+    }
+
+    // Aggregates everything up to the late-commit window in one query and applies the window row by row, so the
+    // ids it contains are known and can be skipped when the next refresh reads the window again.
+    private void load(Ledger ledger) {
+        Instant loadedAt = Instant.now();
+        long settled = Math.max(0, inventoryMovementMapper.selectMaxMovementId() - settings.getLateCommitWindow());
+        List<InventoryMovement> sums = inventoryMovementMapper.sumQtyByProductAndWarehouse(
+                new QueryWrapper<InventoryMovement>().le("movement_id", settled));
+        Map<StockKey, Long> quantities = new HashMap<>();
+        for (InventoryMovement sum : sums) {
+            quantities.put(new StockKey(sum.getProductId(), sum.getWarehouse()), sum.getQty().longValue());
+        }
+        ledger.balances = applyNewMovements(new Balances(quantities, Set.of(), settled, settled, loadedAt, loadedAt), loadedAt);
+    }
+
+    // Applies every movement above the settled id to copies, so a lookup never sees part of a batch, such as one leg
+    // of a transfer, and always gets quantities and the watermark they were computed up to together.
+    private Balances applyNewMovements(Balances from, Instant loadedAt) {
+        Map<StockKey, Long> quantities = new HashMap<>(from.quantities());
+        Set<Long> appliedIds = new HashSet<>(from.appliedIds());
+        int batchSize = settings.getRefreshBatchSize();
+        long after = from.settled();
+        long watermark = from.watermark();
+        List<InventoryMovement> batch;
+        do {
+            LambdaQueryWrapper<InventoryMovement> query = new LambdaQueryWrapper<InventoryMovement>()
+                    .select(InventoryMovement::getMovementId, InventoryMovement::getProductId,
+                            InventoryMovement::getWarehouse, InventoryMovement::getQty)
+                    .gt(InventoryMovement::getMovementId, after)
+                    .orderByAsc(InventoryMovement::getMovementId);
+            batch = inventoryMovementMapper.selectPage(new Page<>(1, batchSize, false), query).getRecords();
+            for (InventoryMovement movement : batch) {
+                if (appliedIds.add(movement.getMovementId())) {
+                    quantities.merge(new StockKey(movement.getProductId(), movement.getWarehouse()),
+                            movement.getQty().longValue(), Long::sum);
+                }
+            }
+            if (!batch.isEmpty()) {
+                after = batch.get(batch.size() - 1).getMovementId();
+                watermark = Math.max(watermark, after);
+            }
+        } while (batch.size() == batchSize);
+        // ids below the window are no longer re-read, so they need not be remembered
+        long settled = Math.max(from.settled(), watermark - settings.getLateCommitWindow());
+        appliedIds.removeIf(id -> id <= settled);
+        return new Balances(Collections.unmodifiableMap(quantities), Collections.unmodifiableSet(appliedIds), settled,
+                watermark, loadedAt, Instant.now());
+    }
+
+    private static final class Ledger {
+        private final ReentrantLock lock = new ReentrantLock();
+        // Null until the first load; then replaced as a whole by every refresh.
+        private volatile Balances balances;
+    }
+
+    // Movement ids above settled that are already in the quantities are listed in appliedIds.
+    private record Balances(Map<StockKey, Long> quantities,
+                            Set<Long> appliedIds,
+                            long settled,
+                            long watermark,
+                            Instant loadedAt,
+                            Instant refreshedAt) {
+    }
+
+    private record StockKey(Long productId, String warehouse) {
+    }
+}
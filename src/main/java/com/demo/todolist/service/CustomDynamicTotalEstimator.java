@@ -0,0 +1,71 @@
+package com.demo.todolist.service;
+
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.demo.todolist.customdynamic.dto.DbType;
+import com.demo.todolist.customdynamic.event.CustomDynamicConnectionClosedEvent;
+import com.demo.todolist.customdynamic.service.CustomDynamicDataSourceRegistry;
+import com.demo.todolist.mapper.TableStatisticsMapper;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class CustomDynamicTotalEstimator {
+
+    private static final Duration ESTIMATE_TTL = Duration.ofMinutes(5);
+
+    private final CustomDynamicDataSourceRegistry registry;
+    private final TableStatisticsMapper tableStatisticsMapper;
+    private final Map<EstimateKey, CachedEstimate> estimates = new ConcurrentHashMap<>();
+
+    public CustomDynamicTotalEstimator(CustomDynamicDataSourceRegistry registry,
+                                       TableStatisticsMapper tableStatisticsMapper) {
+        this.registry = registry;
+        this.tableStatisticsMapper = tableStatisticsMapper;
+    }
+
+    // Planner statistics for the whole table; must run with the connection's routing key already set.
+    public Long estimate(String connectionId, Class<?> entityClass) {
+        String qualifiedName = TableInfoHelper.getTableInfo(entityClass).getTableName();
+        EstimateKey key = new EstimateKey(connectionId, qualifiedName);
+        Instant now = Instant.now();
+        CachedEstimate cached = estimates.get(key);
+        if (cached != null && cached.expiresAt().isAfter(now)) {
+            return cached.rows();
+        }
+        Long rows = queryStatistics(registry.getDbType(connectionId), qualifiedName);
+        if (rows != null && rows < 0) {
+            // PostgreSQL reports -1 for tables that were never analyzed
+            rows = null;
+        }
+        estimates.put(key, new CachedEstimate(rows, now.plus(ESTIMATE_TTL)));
+        return rows;
+    }
+
+    @EventListener
+    public void onConnectionClosed(CustomDynamicConnectionClosedEvent event) {
+        estimates.keySet().removeIf(key -> key.connectionId().equals(event.connectionId()));
+    }
+
+    private Long queryStatistics(DbType dbType, String qualifiedName) {
+        int dot = qualifiedName.indexOf('.');
+        String schema = dot < 0 ? null : qualifiedName.substring(0, dot);
+        String table = qualifiedName.substring(dot + 1);
+        return switch (dbType) {
+            case POSTGRES -> tableStatisticsMapper.estimatePostgresRows(qualifiedName);
+            case ORACLE -> tableStatisticsMapper.estimateOracleRows(schema, table);
+            case MYSQL -> tableStatisticsMapper.estimateMysqlRows(schema, table);
+            case MSSQL -> tableStatisticsMapper.estimateMssqlRows(qualifiedName);
+        };
+    }
+
+    private record EstimateKey(String connectionId, String qualifiedName) {
+    }
+
+    private record CachedEstimate(Long rows, Instant expiresAt) {
+    }
+}
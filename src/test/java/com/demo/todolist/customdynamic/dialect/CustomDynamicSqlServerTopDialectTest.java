@@ -0,0 +1,53 @@
+package com.demo.todolist.customdynamic.dialect;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.DialectModel;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomDynamicSqlServerTopDialectTest {
+
+    private final CustomDynamicSqlServerTopDialect dialect = new CustomDynamicSqlServerTopDialect();
+    private final Configuration configuration = new Configuration();
+
+    @Test
+    void firstPageBindsTheLimitAheadOfTheFilters() {
+        DialectModel model = dialect.buildPaginationSql(
+                "SELECT order_id FROM orders WHERE customer_id = ? AND order_status = ? ORDER BY order_id", 0, 51);
+        List<ParameterMapping> mappings = new ArrayList<>(List.of(mapping("values[0]"), mapping("values[1]")));
+        Map<String, Object> additionalParameters = new HashMap<>();
+
+        model.consumers(mappings, configuration, additionalParameters);
+
+        assertThat(model.getDialectSql())
+                .isEqualTo("SELECT TOP (?) order_id FROM orders WHERE customer_id = ? AND order_status = ? ORDER BY order_id");
+        assertThat(mappings).extracting(ParameterMapping::getProperty)
+                .containsExactly("mybatis_plus_first", "values[0]", "values[1]");
+        assertThat(additionalParameters).containsEntry("mybatis_plus_first", 51L);
+    }
+
+    @Test
+    void keepsDistinctAheadOfTop() {
+        DialectModel model = dialect.buildPaginationSql("SELECT DISTINCT city FROM customers", 0, 10);
+
+        assertThat(model.getDialectSql()).isEqualTo("SELECT DISTINCT TOP (?) city FROM customers");
+    }
+
+    @Test
+    void laterPagesFallBackToOffsetFetch() {
+        DialectModel model = dialect.buildPaginationSql("SELECT order_id FROM orders ORDER BY order_id", 20, 10);
+
+        assertThat(model.getDialectSql()).doesNotContain("TOP").contains("OFFSET");
+    }
+
+    private ParameterMapping mapping(String property) {
+        return new ParameterMapping.Builder(configuration, property, Object.class).build();
+    }
+}
@@ -0,0 +1,89 @@
+package com.demo.todolist.customdynamic.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomDynamicExpiryWheelTest {
+
+    private static final Duration TICK = Duration.ofSeconds(1);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<String, Long> deadlines = new HashMap<>();
+
+    @Test
+    void expiresExactlyAtTheTtl() {
+        CustomDynamicExpiryWheel wheel = wheel(5);
+        schedule(wheel, "a", 5);
+
+        assertThat(advanceTo(wheel, 4)).isEmpty();
+        assertThat(advanceTo(wheel, 5)).containsExactly("a");
+    }
+
+    @Test
+    void touchedIdIsRescheduledToItsLaterDeadline() {
+        CustomDynamicExpiryWheel wheel = wheel(5);
+        schedule(wheel, "a", 5);
+        // touched at tick 3, without rescheduling
+        deadlines.put("a", 8L);
+
+        assertThat(advanceTo(wheel, 5)).isEmpty();
+        assertThat(advanceTo(wheel, 7)).isEmpty();
+        assertThat(advanceTo(wheel, 8)).containsExactly("a");
+    }
+
+    @Test
+    void deadlineBeyondOneRevolutionComesRoundAgain() {
+        // a TTL of 4 ticks gets 8 slots, so tick 20 shares its slot with ticks 4 and 12
+        CustomDynamicExpiryWheel wheel = wheel(4);
+        schedule(wheel, "a", 20);
+
+        for (long tick = 1; tick < 20; tick++) {
+            assertThat(advanceTo(wheel, tick)).as("tick %d", tick).isEmpty();
+        }
+        assertThat(advanceTo(wheel, 20)).containsExactly("a");
+    }
+
+    @Test
+    void longPauseStillExpiresEveryDueId() {
+        CustomDynamicExpiryWheel wheel = wheel(4);
+        schedule(wheel, "a", 3);
+        schedule(wheel, "b", 20);
+
+        assertThat(advanceTo(wheel, 20)).containsExactlyInAnyOrder("a", "b");
+    }
+
+    @Test
+    void removedIdIsDroppedFromTheWheel() {
+        CustomDynamicExpiryWheel wheel = wheel(5);
+        schedule(wheel, "a", 5);
+        // closed by other means before it came due
+        deadlines.put("a", -1L);
+
+        assertThat(advanceTo(wheel, 5)).isEmpty();
+
+        // were it still in the wheel, this deadline would expire it on its next turn
+        deadlines.put("a", 0L);
+        assertThat(advanceTo(wheel, 30)).isEmpty();
+    }
+
+    private CustomDynamicExpiryWheel wheel(long ttlTicks) {
+        return new CustomDynamicExpiryWheel(TICK, ttlTicks, clock::get);
+    }
+
+    private void schedule(CustomDynamicExpiryWheel wheel, String connectionId, long deadlineTick) {
+        deadlines.put(connectionId, deadlineTick);
+        wheel.schedule(connectionId, deadlineTick);
+    }
+
+    private List<String> advanceTo(CustomDynamicExpiryWheel wheel, long tick) {
+        clock.set(tick * TICK.toNanos());
+        return wheel.advance(connectionId -> deadlines.getOrDefault(connectionId, -1L));
+    }
+}
@@ -0,0 +1,208 @@
+package com.demo.todolist.service;
+
+import com.demo.todolist.config.CustomDynamicQueryProperties;
+import com.demo.todolist.customdynamic.service.CustomDynamicDataSourceRegistry;
+import com.demo.todolist.dto.CustomDynamicBulkheadStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CustomDynamicBulkheadsTest {
+
+    private static final String DATABASE = "reporting";
+
+    private CustomDynamicQueryProperties.Bulkhead settings;
+    private CustomDynamicBulkheads bulkheads;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        CustomDynamicDataSourceRegistry registry = mock(CustomDynamicDataSourceRegistry.class);
+        when(registry.getDatabaseName(anyString())).thenReturn(DATABASE);
+        CustomDynamicQueryProperties properties = new CustomDynamicQueryProperties();
+        settings = properties.getBulkhead();
+        settings.setMaxConcurrentPerConnection(1);
+        settings.setMaxConcurrentPerDatabase(1);
+        settings.setMaxQueuedPerConnection(4);
+        settings.setQueueTimeout(Duration.ofSeconds(5));
+        bulkheads = new CustomDynamicBulkheads(registry, properties, new SimpleMeterRegistry());
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void queuesOverTheConnectionLimitAndRunsWhenTheSlotFrees() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = hold("a", release);
+        Future<String> queued = executor.submit(() -> bulkheads.call("a", () -> "done"));
+        awaitUntil(() -> stats().queued() == 1);
+        assertThat(queued.isDone()).isFalse();
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+        assertThat(stats().active()).isZero();
+        assertThat(stats().queued()).isZero();
+        assertThat(stats().connections()).isEmpty();
+    }
+
+    @Test
+    void freedSlotsGoToConnectionsInRoundRobinOrder() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = hold("a", release);
+        List<String> order = new CopyOnWriteArrayList<>();
+        Future<?> a2 = submit("a", "a2", order);
+        awaitUntil(() -> stats().queued() == 1);
+        Future<?> a3 = submit("a", "a3", order);
+        awaitUntil(() -> stats().queued() == 2);
+        Future<?> b1 = submit("b", "b1", order);
+        awaitUntil(() -> stats().queued() == 3);
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        a2.get(5, TimeUnit.SECONDS);
+        a3.get(5, TimeUnit.SECONDS);
+        b1.get(5, TimeUnit.SECONDS);
+
+        // b is served before a's second queued request even though it queued last
+        assertThat(order).containsExactly("a2", "b1", "a3");
+    }
+
+    @Test
+    void fullQueueIsRejectedWithRetryAfter() throws Exception {
+        settings.setMaxQueuedPerConnection(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = hold("a", release);
+        Future<String> queued = executor.submit(() -> bulkheads.call("a", () -> "done"));
+        awaitUntil(() -> stats().queued() == 1);
+
+        assertThatThrownBy(() -> bulkheads.call("a", () -> "rejected"))
+                .isInstanceOfSatisfying(ResponseStatusException.class, ex -> {
+                    assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+                    assertThat(ex.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+                });
+        assertThat(stats().rejected()).isEqualTo(1);
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+    }
+
+    @Test
+    void waitLongerThanTheQueueTimeoutIsRejectedAndLeavesTheQueue() throws Exception {
+        settings.setQueueTimeout(Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = hold("a", release);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        assertThatThrownBy(() -> bulkheads.call("a", () -> ran.getAndSet(true)))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS));
+        assertThat(ran).isFalse();
+        assertThat(stats().timedOut()).isEqualTo(1);
+        assertThat(stats().queued()).isZero();
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        assertThat(stats().active()).isZero();
+        assertThat(stats().connections()).isEmpty();
+    }
+
+    @Test
+    void interruptedWaiterGivesUpItsPlaceWithoutTakingASlot() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = hold("a", release);
+        AtomicBoolean ran = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                bulkheads.call("a", () -> ran.getAndSet(true));
+            } catch (Throwable ex) {
+                failure.set(ex);
+            }
+        });
+        waiter.start();
+        awaitUntil(() -> stats().queued() == 1);
+
+        waiter.interrupt();
+        waiter.join(5_000);
+
+        assertThat(ran).isFalse();
+        assertThat(failure.get()).isInstanceOfSatisfying(ResponseStatusException.class,
+                ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(stats().queued()).isZero();
+        assertThat(stats().timedOut()).isZero();
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        assertThat(stats().active()).isZero();
+        assertThat(bulkheads.call("a", () -> "free")).isEqualTo("free");
+    }
+
+    @Test
+    void nestedCallForTheSameDatabaseRunsOnTheHeldSlot() {
+        String result = bulkheads.call("a", () -> bulkheads.call("b", () -> "nested"));
+
+        assertThat(result).isEqualTo("nested");
+        assertThat(stats().active()).isZero();
+    }
+
+    private Future<?> hold(String connectionId, CountDownLatch release) throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        Future<?> holder = executor.submit(() -> bulkheads.call(connectionId, () -> {
+            started.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        return holder;
+    }
+
+    private Future<?> submit(String connectionId, String name, List<String> order) {
+        return executor.submit(() -> bulkheads.call(connectionId, () -> order.add(name)));
+    }
+
+    private CustomDynamicBulkheadStats stats() {
+        return bulkheads.stats().get(0);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not met within 5s");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.demo.todolist.service;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.demo.todolist.customdynamic.dialect.CustomDynamicSqlDialect;
+import com.demo.todolist.dto.CustomDynamicCategoryQueryRequest;
+import com.demo.todolist.dto.CustomDynamicCustomerQueryRequest;
+import com.demo.todolist.dto.CustomDynamicInventoryMovementQueryRequest;
+import com.demo.todolist.dto.CustomDynamicOrderItemQueryRequest;
+import com.demo.todolist.dto.CustomDynamicOrderQueryRequest;
+import com.demo.todolist.dto.CustomDynamicPaymentQueryRequest;
+import com.demo.todolist.dto.CustomDynamicProductQueryRequest;
+import com.demo.todolist.dto.CustomDynamicReturnQueryRequest;
+import com.demo.todolist.entity.Category;
+import com.demo.todolist.entity.Customer;
+import com.demo.todolist.entity.InventoryMovement;
+import com.demo.todolist.entity.OrderEntity;
+import com.demo.todolist.entity.OrderItem;
+import com.demo.todolist.entity.Payment;
+import com.demo.todolist.entity.Product;
+import com.demo.todolist.entity.ReturnEntry;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomDynamicQueryTemplateTest {
+
+    private static final CustomDynamicSqlDialect DIALECT = CustomDynamicSqlDialect.POSTGRES;
+    private static final OffsetDateTime FROM = OffsetDateTime.parse("2026-01-01T00:00Z");
+    private static final OffsetDateTime TO = OffsetDateTime.parse("2026-02-01T00:00Z");
+    private static final CustomDynamicKeysetCursor CURSOR = new CustomDynamicKeysetCursor("test", TO, 77);
+
+    @BeforeAll
+    static void initTableInfo() {
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+        for (Class<?> entityClass : List.of(Customer.class, Category.class, Product.class, InventoryMovement.class,
+                OrderEntity.class, OrderItem.class, Payment.class, ReturnEntry.class)) {
+            TableInfoHelper.initTableInfo(assistant, entityClass);
+        }
+    }
+
+    @Test
+    void filtersBindInTemplateOrder() {
+        CustomDynamicCustomerQueryRequest request = new CustomDynamicCustomerQueryRequest("c1", "a@example.com", "chen",
+                "SG", "Singapore", true, FROM, TO, "lee", null, null, null);
+
+        assertThat(inline(CustomDynamicQueryTemplate.CUSTOMERS, request, null, null, false)).endsWith(
+                " WHERE email = a@example.com AND full_name LIKE %chen% AND (full_name LIKE %lee% OR email LIKE %lee%)"
+                        + " AND country = SG AND city = Singapore AND is_vip = true"
+                        + " AND signup_at >= 2026-01-01T00:00Z AND signup_at <= 2026-02-01T00:00Z"
+                        + " ORDER BY customer_id ASC");
+    }
+
+    @Test
+    void blankTextFiltersAreLeftOut() {
+        CustomDynamicCustomerQueryRequest request = new CustomDynamicCustomerQueryRequest("c1", " ", "",
+                null, "Singapore", null, null, null, "  ", null, null, null);
+
+        CustomDynamicQueryTemplate.Bound bound = CustomDynamicQueryTemplate.CUSTOMERS.bind(request, DIALECT, null, null, false);
+
+        assertThat(bound.values()).containsExactly("Singapore");
+        assertThat(inline(CustomDynamicQueryTemplate.CUSTOMERS, request, null, null, false))
+                .endsWith(" WHERE city = Singapore ORDER BY customer_id ASC");
+    }
+
+    @Test
+    void candidatesArePaddedToTheBucketAndFollowedByTheWatermark() {
+        CustomDynamicProductQueryRequest request = new CustomDynamicProductQueryRequest("c1", null, null, null, null,
+                null, null, "bolt", null, null, null);
+        CustomDynamicNameSearchIndex.Candidates candidates = new CustomDynamicNameSearchIndex.Candidates(List.of(1L, 2L, 3L), 900);
+
+        CustomDynamicQueryTemplate.Bound bound = CustomDynamicQueryTemplate.PRODUCTS.bind(request, DIALECT, candidates, null, false);
+
+        assertThat(bound.shape().inSize()).isEqualTo(4);
+        assertThat(inline(CustomDynamicQueryTemplate.PRODUCTS, request, candidates, null, false)).endsWith(
+                " WHERE (product_name LIKE %bolt% OR sku LIKE %bolt%) AND (product_id IN (1, 2, 3, 3) OR product_id > 900)"
+                        + " ORDER BY product_id ASC");
+    }
+
+    @Test
+    void emptyCandidatesKeepOnlyTheUnindexedBranch() {
+        CustomDynamicNameSearchIndex.Candidates candidates = new CustomDynamicNameSearchIndex.Candidates(List.of(), 900);
+
+        assertThat(inline(CustomDynamicQueryTemplate.CUSTOMERS, customerKeyword(), candidates, null, false)).endsWith(
+                " WHERE (full_name LIKE %chen% OR email LIKE %chen%) AND customer_id > 900 ORDER BY customer_id ASC");
+    }
+
+    @Test
+    void idSeekFollowsTheCandidates() {
+        CustomDynamicNameSearchIndex.Candidates candidates = new CustomDynamicNameSearchIndex.Candidates(List.of(1L, 2L), 900);
+        CustomDynamicKeysetCursor cursor = new CustomDynamicKeysetCursor("customers", null, 5);
+
+        assertThat(inline(CustomDynamicQueryTemplate.CUSTOMERS, customerKeyword(), candidates, cursor, false)).endsWith(
+                " WHERE (full_name LIKE %chen% OR email LIKE %chen%) AND (customer_id IN (1, 2) OR customer_id > 900)"
+                        + " AND customer_id > 5 ORDER BY customer_id ASC");
+    }
+
+    @Test
+    void sortedSeekBindsTheSortValueTwiceThenTheId() {
+        CustomDynamicOrderQueryRequest request = new CustomDynamicOrderQueryRequest("c1", 5L, "PAID", null, FROM, null,
+                null, null, null);
+
+        assertThat(inline(CustomDynamicQueryTemplate.ORDERS, request, null, CURSOR, false)).endsWith(
+                " WHERE customer_id = 5 AND order_status = PAID AND created_at >= 2026-01-01T00:00Z"
+                        + " AND (created_at < 2026-02-01T00:00Z OR (created_at = 2026-02-01T00:00Z AND order_id < 77))"
+                        + " ORDER BY created_at DESC, order_id DESC");
+    }
+
+    @Test
+    void countIgnoresTheCursorAndOrdering() {
+        CustomDynamicOrderQueryRequest request = new CustomDynamicOrderQueryRequest("c1", 5L, null, null, null, null,
+                null, null, null);
+
+        assertThat(inline(CustomDynamicQueryTemplate.ORDERS, request, null, CURSOR, true))
+                .isEqualTo("SELECT COUNT(*) FROM test.orders WHERE customer_id = 5");
+    }
+
+    @Test
+    void orderChildrenUseAnExactInList() {
+        CustomDynamicNameSearchIndex.Candidates orderIds = CustomDynamicNameSearchIndex.Candidates.exactly(List.of(1L, 2L, 3L));
+
+        assertThat(inline(CustomDynamicQueryTemplate.ORDER_ITEMS_OF_ORDERS, null, orderIds, null, false))
+                .endsWith(" WHERE order_id IN (1, 2, 3, 3) ORDER BY order_item_id ASC");
+        assertThatThrownBy(() -> CustomDynamicQueryTemplate.PAYMENTS_OF_ORDERS.bind(null, DIALECT,
+                CustomDynamicNameSearchIndex.Candidates.exactly(List.of()), null, false))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void everyShapeBindsOneValuePerPlaceholder() {
+        assertAligned(CustomDynamicQueryTemplate.CUSTOMERS, List.of(
+                new CustomDynamicCustomerQueryRequest("c1", null, null, null, null, null, null, null, null, null, null, null),
+                new CustomDynamicCustomerQueryRequest("c1", "a@example.com", "chen", "SG", "Singapore", false, FROM, TO,
+                        "lee", null, null, null)), true);
+        assertAligned(CustomDynamicQueryTemplate.CATEGORIES, List.of(
+                new CustomDynamicCategoryQueryRequest("c1", null, null, null, null),
+                new CustomDynamicCategoryQueryRequest("c1", "tools", null, null, null)), false);
+        assertAligned(CustomDynamicQueryTemplate.PRODUCTS, List.of(
+                new CustomDynamicProductQueryRequest("c1", null, null, null, null, null, null, null, null, null, null),
+                new CustomDynamicProductQueryRequest("c1", "SKU-1", "bolt", 3L, true, BigDecimal.ONE, BigDecimal.TEN,
+                        "nut", null, null, null)), true);
+        assertAligned(CustomDynamicQueryTemplate.INVENTORY_MOVEMENTS, List.of(
+                new CustomDynamicInventoryMovementQueryRequest("c1", null, null, null, null, null, null, null, null, null),
+                new CustomDynamicInventoryMovementQueryRequest("c1", 3L, "IN", "north", FROM, TO, true, null, null, null)), false);
+        assertAligned(CustomDynamicQueryTemplate.ORDERS, List.of(
+                new CustomDynamicOrderQueryRequest("c1", null, null, null, null, null, null, null, null),
+                new CustomDynamicOrderQueryRequest("c1", 5L, "PAID", "WEB", FROM, TO, null, null, null)), false);
+        assertAligned(CustomDynamicQueryTemplate.ORDER_ITEMS, List.of(
+                new CustomDynamicOrderItemQueryRequest("c1", null, null, null, null, null, null),
+                new CustomDynamicOrderItemQueryRequest("c1", 9L, 3L, true, null, null, null)), false);
+        assertAligned(CustomDynamicQueryTemplate.PAYMENTS, List.of(
+                new CustomDynamicPaymentQueryRequest("c1", null, null, null, null, null, null, null, null),
+                new CustomDynamicPaymentQueryRequest("c1", 9L, "CARD", "SETTLED", FROM, TO, null, null, null)), false);
+        assertAligned(CustomDynamicQueryTemplate.RETURNS, List.of(
+                new CustomDynamicReturnQueryRequest("c1", null, null, null, null, null, null, null, null, null),
+                new CustomDynamicReturnQueryRequest("c1", 9L, 3L, "OPEN", FROM, TO, true, null, null, null)), false);
+        for (CustomDynamicQueryTemplate<Void, ?> template : List.of(CustomDynamicQueryTemplate.ORDER_ITEMS_OF_ORDERS,
+                CustomDynamicQueryTemplate.PAYMENTS_OF_ORDERS, CustomDynamicQueryTemplate.RETURNS_OF_ORDERS)) {
+            for (int size : new int[]{1, 3, 513, 1000}) {
+                for (boolean count : new boolean[]{false, true}) {
+                    assertAligned(template, null, CustomDynamicNameSearchIndex.Candidates.exactly(ids(size)), null, count);
+                }
+            }
+        }
+    }
+
+    @Test
+    void bucketsAreAscendingPowersOfTwoCappedAtTheLimit() {
+        assertThat(Arrays.stream(new int[]{0, 1, 2, 3, 4, 5, 9, 513, 999, 1000}).map(CustomDynamicQueryTemplate::bucket))
+                .containsExactly(0, 1, 2, 4, 4, 8, 16, 1000, 1000, 1000);
+    }
+
+    @Test
+    void inListOverTheLimitIsRejected() {
+        List<Long> ids = ids(CustomDynamicQueryTemplate.IN_LIMIT + 1);
+
+        assertThatThrownBy(() -> CustomDynamicQueryTemplate.bucket(ids.size()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CustomDynamicQueryTemplate.CUSTOMERS.bind(customerKeyword(), DIALECT,
+                new CustomDynamicNameSearchIndex.Candidates(ids, 900), null, false))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CustomDynamicQueryTemplate.ORDER_ITEMS_OF_ORDERS.bind(null, DIALECT,
+                CustomDynamicNameSearchIndex.Candidates.exactly(ids), null, false))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static <R> void assertAligned(CustomDynamicQueryTemplate<R, ?> template, List<R> requests, boolean narrowable) {
+        List<CustomDynamicNameSearchIndex.Candidates> candidates = narrowable
+                ? Arrays.asList(null, new CustomDynamicNameSearchIndex.Candidates(List.of(), 900),
+                        new CustomDynamicNameSearchIndex.Candidates(ids(3), 900),
+                        new CustomDynamicNameSearchIndex.Candidates(ids(1000), 900))
+                : Arrays.asList((CustomDynamicNameSearchIndex.Candidates) null);
+        for (R request : requests) {
+            for (CustomDynamicNameSearchIndex.Candidates narrowing : candidates) {
+                for (CustomDynamicKeysetCursor cursor : Arrays.asList(null, CURSOR)) {
+                    assertAligned(template, request, narrowing, cursor, false);
+                    assertAligned(template, request, narrowing, cursor, true);
+                }
+            }
+        }
+    }
+
+    private static <R> void assertAligned(CustomDynamicQueryTemplate<R, ?> template,
+                                          R request,
+                                          CustomDynamicNameSearchIndex.Candidates candidates,
+                                          CustomDynamicKeysetCursor cursor,
+                                          boolean count) {
+        CustomDynamicQueryTemplate.Bound bound = template.bind(request, DIALECT, candidates, cursor, count);
+        String sql = template.render(bound.shape());
+
+        assertThat(placeholders(sql)).as(sql).isEqualTo(bound.values().size()).isEqualTo(bound.shape().binds());
+    }
+
+    // The rendered SQL with each placeholder replaced by its bound value, so the binding order is visible.
+    private static <R> String inline(CustomDynamicQueryTemplate<R, ?> template,
+                                     R request,
+                                     CustomDynamicNameSearchIndex.Candidates candidates,
+                                     CustomDynamicKeysetCursor cursor,
+                                     boolean count) {
+        CustomDynamicQueryTemplate.Bound bound = template.bind(request, DIALECT, candidates, cursor, count);
+        String sql = template.render(bound.shape());
+        assertThat(placeholders(sql)).as(sql).isEqualTo(bound.values().size());
+        StringBuilder inlined = new StringBuilder();
+        int value = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                inlined.append(bound.values().get(value++));
+            } else {
+                inlined.append(c);
+            }
+        }
+        return inlined.toString();
+    }
+
+    private static int placeholders(String sql) {
+        return (int) sql.chars().filter(c -> c == '?').count();
+    }
+
+    private static CustomDynamicCustomerQueryRequest customerKeyword() {
+        return new CustomDynamicCustomerQueryRequest("c1", null, null, null, null, null, null, null, "chen", null, null, null);
+    }
+
+    private static List<Long> ids(int size) {
+        return LongStream.rangeClosed(1, size).boxed().toList();
+    }
+}